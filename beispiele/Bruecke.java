@@ -2,6 +2,7 @@ package beispiele;
 
 import cnf.Formula;
 import cnf.VarName;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -88,22 +89,18 @@ public class Bruecke {
     // Jede Person sowie die Lampe ist an genau einer Stelle.
     for (int t = 0; t <= maxZeit; t++) {
       for (int i = 0; i <= n; i++) { // Personen und Lampe
-        conditions.add(imp(links(i, t), and(neg(rechts(i, t)), and(neg(brueckeNachLinks(i, t)), neg(brueckeNachRechts(i, t))))));
-        conditions.add(imp(rechts(i, t), and(neg(links(i, t)), and(neg(brueckeNachLinks(i, t)), neg(brueckeNachRechts(i, t))))));
-        conditions.add(imp(brueckeNachLinks(i, t), and(neg(links(i, t)), and(neg(rechts(i, t)), neg(brueckeNachRechts(i, t))))));
-        conditions.add(imp(brueckeNachRechts(i, t), and(neg(links(i, t)), and(neg(rechts(i, t)), neg(brueckeNachLinks(i, t))))));
-        conditions.add(or(links(i, t), or(rechts(i, t), or(brueckeNachRechts(i, t), brueckeNachLinks(i, t)))));
+        conditions.add(exactlyOne(Arrays.asList(links(i, t), rechts(i, t), brueckeNachLinks(i, t), brueckeNachRechts(i, t))));
       }
     }
 
     // Die Restdauer einer Ueberquerung ist eine eindeutige Zahl, d.h.
     // zwei verschiedene Restzeiten koennen nicht gleichzeitig wahr sein.
     for (int t = 0; t <= maxZeit; t++) {
-      for (int rest1 = 0; rest1 < maxDauer; rest1++) {
-        for (int rest2 = rest1 + 1; rest2 < maxDauer; rest2++) {
-          conditions.add(neg(and(restDauer(rest1, t), restDauer(rest2, t))));
-        }
+      List<Formula> l = new LinkedList<Formula>();
+      for (int rest = 0; rest < maxDauer; rest++) {
+        l.add(restDauer(rest, t));
       }
+      conditions.add(atMostOne(l));
     }
 
     // Die Restdauer einer Ueberquerung kann nur dann positiv sein, wenn auch
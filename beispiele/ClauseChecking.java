@@ -185,8 +185,8 @@ public class ClauseChecking {
     }
 
     private static Formula clauseToFormula(List<Integer> clauseParsed, boolean negateFormula, boolean isPrimed){
-        //Test formula to instantiate the new clause
-        Formula clause = or(var(vars.get(0)), var(vars.get(1)));
+        //The literals are collected and joined by a single 'or' at the end
+        List<Formula> literals = new ArrayList<>();
 
         //Loops through each element in the list of integers to create the clause
         for (int i = 0; i < clauseParsed.size(); i++) {
@@ -218,49 +218,30 @@ public class ClauseChecking {
        */
             if ((negative && !negateFormula) || (!negative && negateFormula)) {
                 //Negate variable
-                //If the clause is empty set the clause to the element, otherwise add the element via a logical or
-                if (i == 0) {
-                    clause = neg(var(vars.get(pos)));
-                } else {
-                    clause = or(clause, neg(var(vars.get(pos))));
-                }
+                literals.add(neg(var(vars.get(pos))));
             } else {
-                //If the clause is empty set the clause to the element, otherwise add the element via a logical or
-                if (i == 0) {
-                    clause = var(vars.get(pos));
-                } else {
-                    clause = or(clause, var(vars.get(pos)));
-                }
+                literals.add(var(vars.get(pos)));
             }
         }
         //The new clause is returned so it can be combined with any others to form the complete formula
-        return clause;
+        return literals.size() == 1 ? literals.get(0) : or(literals);
     }
 
     private static Formula listToFormula(List<List<Integer>> clauses, boolean negateFormula, boolean isPrimed) {
-        //Test formula to instantiate the new formula
-        Formula newFormula = or(var(vars.get(0)), var(vars.get(1)));
+        //The clauses are collected and joined by a single 'and' at the end
+        List<Formula> conjuncts = new ArrayList<>();
 
         //Creates a new clause for each list of lists passed in
         for (int j = 0; j < clauses.size(); j++) {
             //Calls method to produce the formula for the clause at j, again stating if negated or primed
             Formula clause = createClause(clauses, negateFormula, isPrimed, j);
-
-            //If j = 0 overwrite the existing formula, otherwise formula because the existing formula and the new clause
-            if (j == 0) {
-                newFormula = clause;
-            } else {
-                newFormula = and(newFormula, clause);
-            }
+            conjuncts.add(clause);
         }
         //Returns the completed formula
-        return newFormula;
+        return conjuncts.size() == 1 ? conjuncts.get(0) : and(conjuncts);
     }
 
     private static Formula createClause(List<List<Integer>> clauses, boolean negateFormula, boolean isPrimed, int j) {
-        //Test formula to instantiate the new clause
-        Formula clause = or(var(vars.get(0)), var(vars.get(1)));
-
         //The new clause is returned so it can be combined with any others to form the complete formula
         return clauseToFormula(clauses.get(j), negateFormula, isPrimed);
     }
@@ -0,0 +1,879 @@
+package beispiele;
+
+import cnf.ClauseBlock;
+import cnf.CnfContext;
+import cnf.Encoding;
+import cnf.Formula;
+import cnf.SatSession;
+import cnf.VarName;
+
+import static cnf.CNF.*;
+
+import org.sat4j.specs.TimeoutException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * FrameIC3.java
+ * <p>
+ * An IC3 engine that keeps its frames as clause sets backed by persistent incremental SAT sessions, instead of
+ * rebuilding Fk /\ T /\ !P' as a new formula for every check as IC3.java does.
+ * <p>
+ * The automaton is given as in IC3.java by three Dimacs CNFs: the initial states I and the safety property P over the
+ * state variables 1..n, and the transition relation T over the state variables and their primed equivalents n+1..2n.
+ * <p>
+ * Frame F0 is I, every further frame Fi is a set of clauses over the state variables. Each frame has its own
+ * SatSession into which T is loaded exactly once, when the frame is created; clauses learned for the frame are added
+ * to the session as they are found. T is guarded by an activation variable, so the same session answers both
+ * Fi /\ !P (T switched off) and the relative induction query Fi /\ !s /\ T /\ s' (T switched on). The activation
+ * variable and the cube s' are passed as assumptions. The clause !s is added as a plain clause guarded by a fresh
+ * activation variable, which only this query assumes and which the next query on the frame switches off for good by
+ * a unit clause. A query thus leaves a single clause satisfied at the top level behind, but no Tseitin variables,
+ * definitions or encoder entries.
+ * <p>
+ * The frames are stored delta encoded: every clause is kept only in the delta of the highest frame it is known to
+ * hold in, and Fi is the union of the deltas of Fi and all higher frames. Propagation checks only the delta of each
+ * frame and moves a clause one delta up when it holds after a transition from Fi. Since Fi+1 is a subset of Fi by
+ * construction, Fi = Fi+1 as soon as the delta of Fi is empty; convergence needs neither an equivalence query nor a
+ * comparison of clause sets.
+ * <p>
+ * A blocked cube s is generalised to a smaller cube c whose clause !c is still inductive relative to the frame, so
+ * that one clause excludes many states. EXHAUSTIVE tries all sub-cubes of s from the smallest upwards, as
+ * IC3WithClauseGrouping.java does, at a number of SAT calls exponential in the number of state variables. MIC first
+ * keeps only the literals of s whose primed equivalents are in the UNSAT core of the relative induction query and
+ * then drops one literal after another as long as the clause stays inductive, until a bounded number of attempts
+ * has failed. getSatCalls() allows the two to be compared.
+ * <p>
+ * When MIC fails to drop a literal because the shorter cube c has a predecessor t in Fi, t is a counterexample to
+ * generalisation (CTG). If t is not initial and !t is inductive relative to F(i-1), t is blocked in Fi by a
+ * generalised clause of its own and c is tried again; this is repeated for a bounded number of CTGs and nested up to
+ * a bounded depth. Otherwise c is shrunk to the literals it shares with t, which t then violates.
+ * <p>
+ * Proof obligations wait in a priority queue ordered by frame level, then by depth (the number of steps to the bad
+ * state), then by an optional heuristic, so the obligation closest to the initial states is always handled first.
+ * A blocked obligation is enqueued again one frame higher, up to the top frame, so a state that has been blocked once
+ * is excluded from as many frames as possible while the lemmas learned for it are at hand.
+ * </p>
+ */
+public class FrameIC3 {
+    /**
+     * The strategies for generalising a blocked cube
+     */
+    public enum Generalization {
+        EXHAUSTIVE, MIC
+    }
+
+    //The number of state variables; the primed variables are numbered from numberOfStateVars + 1
+    private final int numberOfStateVars;
+
+    //Context owning the variables, so that variable i has the number i as in the Dimacs files
+    private final CnfContext context;
+
+    //The state variables 1..n
+    private final VarName[] stateVars;
+
+    //All variables, the state variables followed by their primed equivalents
+    private final VarName[] vars;
+
+    //Clauses of the initial states, the safety property and the transitions
+    private final ClauseBlock initialClauses;
+    private final ClauseBlock safetyClauses;
+    private final ClauseBlock transitionClauses;
+
+    //!P as a formula, the same object for every query so that it is only encoded once per session
+    private final Formula notSafety;
+
+    //Assumed to switch on the transition clauses in a frame's session
+    private final Formula transitionActive;
+
+    //The transition clauses, each extended by the negated activation variable
+    private final ClauseBlock guardedTransitions;
+
+    //The frames F0, F1, ..., Fk
+    private final List<Frame> frames = new ArrayList<>();
+
+    //Number of SAT-Solver calls made so far
+    private int satCalls;
+
+    //The strategy for generalising blocked cubes
+    private Generalization generalization = Generalization.MIC;
+
+    //Failed attempts to drop a literal after which MIC gives up
+    private int micAttempts = 3;
+
+    //Levels of nested MIC calls that block CTGs, 0 switches CTG handling off
+    private int ctgDepth = 1;
+
+    //CTGs blocked for one cube before it is shrunk instead
+    private int ctgRetries = 3;
+
+    //Number of CTGs blocked so far
+    private int ctgCount;
+
+    //Orders obligations of equal level and depth, or null
+    private Comparator<Obligation> heuristic;
+
+    //Number of obligations created so far, also their order of creation
+    private int obligationCount;
+
+    //Number of obligations handled, and of those enqueued again one frame higher, so far
+    private int handledObligations;
+    private int requeuedObligations;
+
+    //Largest depth of an obligation so far
+    private int maxDepth;
+
+    //The inductive invariant once one has been found, otherwise null
+    private List<List<Integer>> invariant;
+
+    //The counter example trace once one has been found, starting in an initial state, otherwise null
+    private List<int[]> counterExample;
+
+    /**
+     * A frame Fi: its delta, all of its clauses and the incremental session holding T and those clauses
+     */
+    private final class Frame {
+        final SatSession session;
+        //The clauses whose highest frame is Fi
+        final Set<List<Integer>> delta = new LinkedHashSet<>();
+        //The clauses of Fi, that is of the deltas of Fi and all higher frames, as loaded into the session
+        final Set<List<Integer>> clauseSet = new HashSet<>();
+        //The activation variable guarding the clause !s of the last relative induction query, or 0
+        int activation;
+
+        Frame() {
+            session = context.session(Encoding.TSEITIN);
+            session.addClauses(guardedTransitions);
+        }
+
+        boolean load(List<Integer> clause) {
+            if (!clauseSet.add(clause)) {
+                return false;
+            }
+            int[] lits = new int[clause.size()];
+            for (int i = 0; i < lits.length; i++) {
+                lits[i] = clause.get(i);
+            }
+            session.addClause(lits);
+            return true;
+        }
+
+        /**
+         * Adds the clause guarded by a fresh activation variable, after switching off the one of the previous query.
+         * The previous query stays active until now, so that its UNSAT core can still be computed
+         *
+         * @return The activation variable, to be assumed for this query only
+         */
+        Formula guard(List<Integer> clause) {
+            if (activation != 0) {
+                session.addClause(-activation);
+            }
+            VarName act = context.freshVarName();
+            activation = act.getNumber();
+            int[] lits = new int[clause.size() + 1];
+            lits[0] = -activation;
+            for (int i = 0; i < clause.size(); i++) {
+                lits[i + 1] = clause.get(i);
+            }
+            session.addClause(lits);
+            return var(act);
+        }
+    }
+
+    /**
+     * A proof obligation: the state (as a complete cube over the state variables) must be shown unreachable within
+     * level steps, or a counter example is found. The parent is the successor state the obligation was derived from,
+     * the depth the number of steps from the state to the bad state
+     */
+    public static final class Obligation {
+        private final int[] cube;
+        private final int level;
+        private final int depth;
+        private final Obligation parent;
+        private final int order;
+
+        private Obligation(int[] cube, int level, int depth, Obligation parent, int order) {
+            this.cube = cube;
+            this.level = level;
+            this.depth = depth;
+            this.parent = parent;
+            this.order = order;
+        }
+
+        public int[] getCube() {
+            return cube.clone();
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public Obligation getParent() {
+            return parent;
+        }
+    }
+
+    /**
+     * Creates the engine for the automaton given by the three sets of clauses
+     *
+     * @param initialClauses    The initial states over the state variables
+     * @param safetyClauses     The safety property over the state variables
+     * @param transitionClauses The transitions over the state variables and their primed equivalents
+     */
+    public FrameIC3(ClauseBlock initialClauses, ClauseBlock safetyClauses, ClauseBlock transitionClauses) {
+        this.initialClauses = initialClauses;
+        this.safetyClauses = safetyClauses;
+        this.transitionClauses = transitionClauses;
+
+        //As in IC3.java the largest variable in the transitions gives the number of variables
+        int maxVar = Math.max(transitionClauses.maxVar(),
+                2 * Math.max(initialClauses.maxVar(), safetyClauses.maxVar()));
+        numberOfStateVars = (maxVar + 1) / 2;
+
+        context = context();
+        vars = new VarName[2 * numberOfStateVars];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = context.freshVarName();
+        }
+        stateVars = Arrays.copyOf(vars, numberOfStateVars);
+        VarName selector = context.freshVarName();
+        transitionActive = var(selector);
+        guardedTransitions = new ClauseBlock();
+        for (int i = 0; i < transitionClauses.size(); i++) {
+            int[] clause = transitionClauses.clause(i);
+            int[] extended = Arrays.copyOf(clause, clause.length + 1);
+            extended[clause.length] = -selector.getNumber();
+            guardedTransitions.add(extended);
+        }
+
+        notSafety = neg(toFormula(safetyClauses));
+    }
+
+    /**
+     * Runs IC3 until either an inductive invariant that implies the safety property or a counter example is found
+     *
+     * @return True if the safety property holds, False if a counter example was found
+     * @throws TimeoutException
+     */
+    public boolean run() throws TimeoutException {
+        //F0 = I
+        Frame f0 = new Frame();
+        f0.session.addClauses(initialClauses);
+        frames.add(f0);
+
+        //I /\ !P
+        BitSet bad = badState(0);
+        if (bad != null) {
+            counterExample = new ArrayList<>();
+            counterExample.add(toCube(bad));
+            return false;
+        }
+
+        frames.add(new Frame());
+        for (int k = 1; ; k++) {
+            //Blocking phase: remove every bad state from Fk
+            for (bad = badState(k); bad != null; bad = badState(k)) {
+                if (!block(obligation(toCube(bad), k, null))) {
+                    return false;
+                }
+            }
+
+            //Propagation phase: push clauses forward, an empty delta of Fi means Fi = Fi+1 is an inductive invariant
+            frames.add(new Frame());
+            for (int i = 1; i <= k; i++) {
+                Frame fi = frames.get(i);
+                Frame next = frames.get(i + 1);
+                for (List<Integer> clause : new ArrayList<>(fi.delta)) {
+                    if (holdsAfterTransition(clause, i)) {
+                        fi.delta.remove(clause);
+                        next.delta.add(clause);
+                        next.load(clause);
+                    }
+                }
+                if (fi.delta.isEmpty()) {
+                    invariant = clausesFrom(i + 1);
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks the obligation and every obligation derived from it, lowest level first. Blocked obligations are enqueued
+     * again one frame higher until they reach the top frame
+     *
+     * @return False if the obligation leads back to an initial state
+     * @throws TimeoutException
+     */
+    private boolean block(Obligation first) throws TimeoutException {
+        int top = frames.size() - 1;
+        PriorityQueue<Obligation> queue = new PriorityQueue<>(this::compare);
+        queue.add(first);
+        while (!queue.isEmpty()) {
+            Obligation o = queue.poll();
+            handledObligations++;
+            if (o.level == 0 || initialClauses.evaluate(toState(o.cube))) {
+                counterExample = trace(o);
+                return false;
+            }
+            if (!isExcluded(o.cube, o.level)) {
+                BitSet predecessor = predecessor(o.cube, o.level - 1);
+                if (predecessor != null) {
+                    queue.add(o);
+                    queue.add(obligation(toCube(predecessor), o.level - 1, o));
+                    continue;
+                }
+                //!s is inductive relative to F(level-1), so it holds in F1..F(level), and so does its generalisation
+                addClause(negate(generalize(o.cube, o.level - 1)), o.level);
+            }
+            if (o.level < top) {
+                requeuedObligations++;
+                queue.add(new Obligation(o.cube, o.level + 1, o.depth, o.parent, obligationCount++));
+            }
+        }
+        return true;
+    }
+
+    private Obligation obligation(int[] cube, int level, Obligation parent) {
+        int depth = parent == null ? 0 : parent.depth + 1;
+        maxDepth = Math.max(maxDepth, depth);
+        return new Obligation(cube, level, depth, parent, obligationCount++);
+    }
+
+    /**
+     * Orders obligations by level, then depth, then the heuristic, then their order of creation
+     */
+    private int compare(Obligation a, Obligation b) {
+        if (a.level != b.level) {
+            return Integer.compare(a.level, b.level);
+        }
+        if (a.depth != b.depth) {
+            return Integer.compare(a.depth, b.depth);
+        }
+        if (heuristic != null) {
+            int c = heuristic.compare(a, b);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(a.order, b.order);
+    }
+
+    /**
+     * Checks whether a clause of Fi is violated by the state. Fi holds nothing but its clauses, so this needs no SAT
+     * call
+     *
+     * @return True if the state is not in Fi
+     */
+    private boolean isExcluded(int[] state, int i) {
+        for (List<Integer> clause : frames.get(i).clauseSet) {
+            boolean violated = true;
+            for (int lit : clause) {
+                if (state[Math.abs(lit) - 1] == lit) {
+                    violated = false;
+                    break;
+                }
+            }
+            if (violated) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generalises a cube whose clause has just been shown to be inductive relative to Fi by predecessor(cube, i)
+     *
+     * @return A sub-cube that is disjoint from I and whose clause is inductive relative to Fi
+     * @throws TimeoutException
+     */
+    private int[] generalize(int[] cube, int i) throws TimeoutException {
+        if (generalization == Generalization.EXHAUSTIVE) {
+            return exhaustive(cube, i);
+        }
+        return mic(coreCube(cube, i), i, 0);
+    }
+
+    /**
+     * Tries all sub-cubes of the cube, smallest first
+     *
+     * @return The first sub-cube that passes both checks, or the cube itself
+     * @throws TimeoutException
+     */
+    private int[] exhaustive(int[] cube, int i) throws TimeoutException {
+        List<Integer> literals = new ArrayList<>();
+        for (int lit : cube) {
+            literals.add(lit);
+        }
+        for (int r = 1; r < cube.length; r++) {
+            for (List<Integer> subset : CombinationFinder.printCombination(literals, literals.size(), r)) {
+                int[] c = toArray(subset);
+                if (!intersectsInitial(c) && predecessor(c, i) == null) {
+                    return c;
+                }
+            }
+        }
+        return cube;
+    }
+
+    /**
+     * Keeps the literals of the cube whose primed equivalents are in the UNSAT core of the last query
+     * predecessor(cube, i). If the smaller cube intersects I, the literals of a clause of I that the whole cube violates
+     * are added back
+     *
+     * @throws TimeoutException
+     */
+    private int[] coreCube(int[] cube, int i) throws TimeoutException {
+        SatSession session = frames.get(i).session;
+        //The core is found by leaving out one assumption after another; only the SAT calls actually made are counted
+        int before = session.getSolverCalls();
+        List<Formula> core = session.core();
+        satCalls += session.getSolverCalls() - before;
+
+        List<Integer> kept = new ArrayList<>();
+        for (int lit : cube) {
+            if (core.contains(literal(lit, true))) {
+                kept.add(lit);
+            }
+        }
+        if (intersectsInitial(toArray(kept))) {
+            for (int j = 0; j < initialClauses.size(); j++) {
+                int[] clause = initialClauses.clause(j);
+                if (violates(cube, clause)) {
+                    for (int lit : clause) {
+                        if (!kept.contains(-lit)) {
+                            kept.add(-lit);
+                        }
+                    }
+                    break;
+                }
+            }
+            kept.sort((a, b) -> Integer.compare(Math.abs(a), Math.abs(b)));
+        }
+        return toArray(kept);
+    }
+
+    /**
+     * Drops one literal after another as long as the cube stays disjoint from I and its clause stays inductive
+     * relative to Fi, until micAttempts attempts have failed
+     *
+     * @param depth The number of enclosing MIC calls that are blocking a CTG
+     * @throws TimeoutException
+     */
+    private int[] mic(int[] cube, int i, int depth) throws TimeoutException {
+        int failures = 0;
+        for (int j = 0; j < cube.length && cube.length > 1 && failures < micAttempts; ) {
+            int[] smaller = new int[cube.length - 1];
+            System.arraycopy(cube, 0, smaller, 0, j);
+            System.arraycopy(cube, j + 1, smaller, j, cube.length - j - 1);
+            int[] reduced = down(smaller, i, depth);
+            if (reduced != null) {
+                cube = reduced;
+            } else {
+                failures++;
+                j++;
+            }
+        }
+        return cube;
+    }
+
+    /**
+     * Tries to make the clause of the cube inductive relative to Fi, by blocking CTGs in Fi and by shrinking the cube
+     * to the literals it shares with a CTG that cannot be blocked
+     *
+     * @return The cube or a sub-cube of it that is disjoint from I and whose clause is inductive relative to Fi, or null
+     * @throws TimeoutException
+     */
+    private int[] down(int[] cube, int i, int depth) throws TimeoutException {
+        int ctgs = 0;
+        while (true) {
+            if (intersectsInitial(cube)) {
+                return null;
+            }
+            BitSet predecessor = predecessor(cube, i);
+            if (predecessor == null) {
+                return cube;
+            }
+            if (depth >= ctgDepth) {
+                return null;
+            }
+            int[] ctg = toCube(predecessor);
+            if (ctgs < ctgRetries && i > 0 && !initialClauses.evaluate(toState(ctg))
+                    && predecessor(ctg, i - 1) == null) {
+                //!t is inductive relative to F(i-1), so it holds in F1..Fi and removes t from Fi
+                ctgs++;
+                ctgCount++;
+                addClause(negate(mic(coreCube(ctg, i - 1), i - 1, depth + 1)), i);
+            } else {
+                ctgs = 0;
+                cube = join(cube, ctg);
+                if (cube.length == 0) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The literals of the cube that are also in the complete cube of a state
+     */
+    private static int[] join(int[] cube, int[] state) {
+        List<Integer> kept = new ArrayList<>();
+        for (int lit : cube) {
+            if (state[Math.abs(lit) - 1] == lit) {
+                kept.add(lit);
+            }
+        }
+        return toArray(kept);
+    }
+
+    /**
+     * Checks I /\ c. A cube that violates a clause of I needs no SAT call, otherwise F0 is asked with T switched off
+     *
+     * @return True if the cube contains an initial state
+     * @throws TimeoutException
+     */
+    private boolean intersectsInitial(int[] cube) throws TimeoutException {
+        for (int j = 0; j < initialClauses.size(); j++) {
+            if (violates(cube, initialClauses.clause(j))) {
+                return false;
+            }
+        }
+        List<Formula> assumptions = new ArrayList<>();
+        for (int lit : cube) {
+            assumptions.add(literal(lit, false));
+        }
+        satCalls++;
+        return frames.get(0).session.solve(assumptions);
+    }
+
+    /**
+     * @return True if the cube contains the negation of every literal of the clause
+     */
+    private static boolean violates(int[] cube, int[] clause) {
+        for (int lit : clause) {
+            boolean found = false;
+            for (int c : cube) {
+                if (c == -lit) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] toArray(List<Integer> literals) {
+        int[] array = new int[literals.size()];
+        for (int j = 0; j < array.length; j++) {
+            array[j] = literals.get(j);
+        }
+        return array;
+    }
+
+    /**
+     * Checks Fk /\ !P
+     *
+     * @return A bad state in Fk, or null if there is none
+     * @throws TimeoutException
+     */
+    private BitSet badState(int k) throws TimeoutException {
+        SatSession session = frames.get(k).session;
+        satCalls++;
+        if (!session.solve(notSafety)) {
+            return null;
+        }
+        return session.model(stateVars);
+    }
+
+    /**
+     * Relative induction: checks Fi /\ !s /\ T /\ s'
+     *
+     * @return A predecessor of s in Fi outside s, or null if !s is inductive relative to Fi
+     * @throws TimeoutException
+     */
+    private BitSet predecessor(int[] cube, int i) throws TimeoutException {
+        Frame frame = frames.get(i);
+        SatSession session = frame.session;
+        List<Formula> assumptions = new ArrayList<>();
+        assumptions.add(transitionActive);
+        assumptions.add(frame.guard(negate(cube)));
+        for (int lit : cube) {
+            assumptions.add(literal(lit, true));
+        }
+        satCalls++;
+        if (!session.solve(assumptions)) {
+            return null;
+        }
+        return session.model(stateVars);
+    }
+
+    /**
+     * Checks Fi /\ T => c' by asking for Fi /\ T /\ !c'
+     *
+     * @return True if the clause holds in every successor of Fi
+     * @throws TimeoutException
+     */
+    private boolean holdsAfterTransition(List<Integer> clause, int i) throws TimeoutException {
+        List<Formula> assumptions = new ArrayList<>();
+        assumptions.add(transitionActive);
+        for (int lit : clause) {
+            assumptions.add(literal(-lit, true));
+        }
+        satCalls++;
+        return !frames.get(i).session.solve(assumptions);
+    }
+
+    /**
+     * Adds the clause to the frames F1..Fk. It moves to the delta of Fk unless it already holds in Fk
+     */
+    private void addClause(List<Integer> clause, int k) {
+        if (frames.get(k).clauseSet.contains(clause)) {
+            return;
+        }
+        for (int i = 1; i <= k; i++) {
+            Frame fi = frames.get(i);
+            if (!fi.load(clause)) {
+                fi.delta.remove(clause);
+            }
+        }
+        frames.get(k).delta.add(clause);
+    }
+
+    /**
+     * @return The clauses of Fi, collected from the deltas of Fi and all higher frames
+     */
+    private List<List<Integer>> clausesFrom(int i) {
+        List<List<Integer>> clauses = new ArrayList<>();
+        for (int j = i; j < frames.size(); j++) {
+            clauses.addAll(frames.get(j).delta);
+        }
+        return clauses;
+    }
+
+    /**
+     * The complete cube of a state: literal i for every true and -i for every false state variable
+     */
+    private int[] toCube(BitSet state) {
+        int[] cube = new int[numberOfStateVars];
+        for (int i = 0; i < numberOfStateVars; i++) {
+            cube[i] = state.get(i) ? i + 1 : -(i + 1);
+        }
+        return cube;
+    }
+
+    /**
+     * The assignment of a cube for ClauseBlock.evaluate: bit i is set if variable i is true
+     */
+    private static BitSet toState(int[] cube) {
+        BitSet state = new BitSet();
+        for (int lit : cube) {
+            if (lit > 0) {
+                state.set(lit);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * The clause !s of a cube s, sorted
+     */
+    private static List<Integer> negate(int[] cube) {
+        List<Integer> clause = new ArrayList<>();
+        for (int lit : cube) {
+            clause.add(-lit);
+        }
+        clause.sort(null);
+        return clause;
+    }
+
+    private Formula literal(int lit, boolean isPrimed) {
+        int pos = Math.abs(lit) - 1;
+        if (isPrimed) {
+            pos += numberOfStateVars;
+        }
+        return lit < 0 ? neg(var(vars[pos])) : var(vars[pos]);
+    }
+
+    private Formula clauseFormula(List<Integer> clause, boolean isPrimed) {
+        List<Formula> literals = new ArrayList<>();
+        for (int lit : clause) {
+            literals.add(literal(lit, isPrimed));
+        }
+        return or(literals);
+    }
+
+    private Formula toFormula(ClauseBlock clauses) {
+        List<Formula> conjuncts = new ArrayList<>();
+        for (int i = 0; i < clauses.size(); i++) {
+            List<Integer> clause = new ArrayList<>();
+            for (int lit : clauses.clause(i)) {
+                clause.add(lit);
+            }
+            conjuncts.add(clauseFormula(clause, false));
+        }
+        return and(conjuncts);
+    }
+
+    /**
+     * The states from the initial state of the trace to the bad state the first obligation started from
+     */
+    private static List<int[]> trace(Obligation o) {
+        List<int[]> states = new ArrayList<>();
+        for (; o != null; o = o.parent) {
+            states.add(o.cube);
+        }
+        return states;
+    }
+
+    /**
+     * Selects the strategy for generalising blocked cubes, MIC by default
+     */
+    public void setGeneralization(Generalization generalization) {
+        this.generalization = generalization;
+    }
+
+    /**
+     * Sets the number of failed attempts to drop a literal after which MIC gives up, 3 by default
+     */
+    public void setMicAttempts(int micAttempts) {
+        this.micAttempts = micAttempts;
+    }
+
+    /**
+     * Sets how many levels of nested MIC calls block CTGs, 1 by default; 0 switches CTG handling off
+     */
+    public void setCtgDepth(int ctgDepth) {
+        this.ctgDepth = ctgDepth;
+    }
+
+    /**
+     * Sets how many CTGs are blocked for one cube before it is shrunk instead, 3 by default
+     */
+    public void setCtgRetries(int ctgRetries) {
+        this.ctgRetries = ctgRetries;
+    }
+
+    /**
+     * Sets the order of obligations with equal level and depth, or null for the order of their creation
+     */
+    public void setObligationHeuristic(Comparator<Obligation> heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * @return The clauses of the inductive invariant found by run(), or null
+     */
+    public List<List<Integer>> getInvariant() {
+        return invariant;
+    }
+
+    /**
+     * @return The states of the counter example found by run(), starting in an initial state, or null
+     */
+    public List<int[]> getCounterExample() {
+        return counterExample;
+    }
+
+    /**
+     * @return The number of frames F0..Fk created so far
+     */
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    /**
+     * @return The number of CTGs blocked so far
+     */
+    public int getCtgCount() {
+        return ctgCount;
+    }
+
+    /**
+     * @return The number of proof obligations handled so far, counting every time one leaves the queue
+     */
+    public int getHandledObligations() {
+        return handledObligations;
+    }
+
+    /**
+     * @return The number of blocked obligations enqueued again one frame higher so far
+     */
+    public int getRequeuedObligations() {
+        return requeuedObligations;
+    }
+
+    /**
+     * @return The largest number of steps from an obligation to its bad state so far
+     */
+    public int getMaxObligationDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return The number of SAT-Solver calls made so far
+     */
+    public int getSatCalls() {
+        return satCalls;
+    }
+
+    /**
+     * Reads the automaton and runs the engine. The optional arguments are the directory of the files, the names of
+     * the initial, safety and transition files, by default those used by IC3.java, and the generalisation strategy,
+     * exhaustive or mic
+     *
+     * @param args
+     * @throws TimeoutException
+     * @throws IOException
+     */
+    public static void main(String[] args) throws TimeoutException, IOException {
+        System.out.println("Frame based IC3\n");
+
+        Path dir = args.length > 0 ? Paths.get(args[0]) : Paths.get(System.getProperty("user.dir"), "beispiele", "Files");
+        String initialFile = args.length > 1 ? args[1] : "initial3.cnf";
+        String safetyFile = args.length > 2 ? args[2] : "safety3.cnf";
+        String transitionFile = args.length > 3 ? args[3] : "transitions3.cnf";
+
+        FrameIC3 ic3 = new FrameIC3(readDIMACS(dir.resolve(initialFile)), readDIMACS(dir.resolve(safetyFile)),
+                readDIMACS(dir.resolve(transitionFile)));
+        if (args.length > 4) {
+            ic3.setGeneralization(Generalization.valueOf(args[4].toUpperCase()));
+        }
+
+        long start = System.nanoTime();
+        boolean safe = ic3.run();
+        long ms = (System.nanoTime() - start) / 1000000;
+
+        if (safe) {
+            System.out.println("Safety property holds, inductive invariant:");
+            for (List<Integer> clause : ic3.getInvariant()) {
+                System.out.println(clause);
+            }
+        } else {
+            System.out.println("Safety property does not hold, counter example:");
+            for (int[] state : ic3.getCounterExample()) {
+                System.out.println(Arrays.toString(state));
+            }
+        }
+        System.out.println("\nFrames: " + ic3.getFrameCount() + ", SAT calls: " + ic3.getSatCalls() + ", CTGs: " + ic3.getCtgCount()
+                + ", obligations: " + ic3.getHandledObligations() + " (" + ic3.getRequeuedObligations() + " requeued), " + ms + " ms");
+    }
+}
@@ -3,6 +3,7 @@ package beispiele;
 import cnf.Formula;
 import cnf.VarName;
 
+import java.util.BitSet;
 import java.util.Set;
 
 import static cnf.CNF.*;
@@ -15,13 +16,10 @@ import java.io.FileWriter;
 import java.util.ArrayList;
 import java.util.Scanner;
 
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.io.IOException;
-import java.util.stream.Collectors;
 
 /**
  * IC3.java
@@ -216,79 +214,56 @@ public class IC3 {
 //    System.out.println("Formula f: " + f);
 //    System.out.println("Formula in CNF, with more variables: " + cnf(f));
 
-        //Calls the SAT-Solver, produces a set of counter example variables if it is satisfiable, otherwise the set is empty
-        Set<VarName> trueVars = satisfiable(f);
-        if (trueVars == null) {
+        //State variables (non-primed) whose values make up the counter example
+        VarName[] stateVars = vars.subList(0, numberOfVars / 2).toArray(new VarName[0]);
+
+        //Calls the SAT-Solver, produces the values of the state variables if it is satisfiable, otherwise null
+        BitSet model = model(f, stateVars);
+        if (model == null) {
             System.out.println("Not satisfiable");
         } else {
             System.out.print("Satisfiable," +
                     " e.g. with an assignment that makes the following variables true" +
                     "(and all others false): ");
 
-            //Variable to store the integer pointers to the counter example variables produced by the SAT-Solver
-            ArrayList<Integer> counterVars = new ArrayList<Integer>();
-
-            //Formula to represent the counter example
-            Formula counterFormula = null;
-
-            //Formula to represent the primed version of the counter example
-            Formula counterFormulaPrime = null;
+            //Literals of the counter example and of its primed version, each joined by a single 'and' at the end
+            List<Formula> counterLiterals = new ArrayList<>();
+            List<Formula> counterLiteralsPrime = new ArrayList<>();
 
             //Clear any existing clauses from previous iterations
             counterClause.clear();
 
-            //Loop through all variables produced by the SAT-Solver
-            for (VarName v : trueVars) {
-                //Only variables that in in the range of the existing non-primed variables can be included
-                if (v.getNumber() <= (numberOfVars / 2)) {
-                    System.out.print(v + " ");
-                    //Integer added to the ArrayList, number - 1 used to counter the off by one error as the Arrays start at 0
-                    counterVars.add(v.getNumber() - 1);
-
-                    //If Formula is emtpy, set it to equal the element otherwise add to it
-                    if (counterFormula == null) {
-                        counterFormula = var(vars.get(v.getNumber() - 1));
-                        counterFormulaPrime = var(vars.get((v.getNumber() - 1) + (numberOfVars / 2)));
-
-                        counterClause.add(-(v.getNumber()));
+            //Adds the true state variables first, then the negation of all others
+            for (int pass = 0; pass < 2; pass++) {
+                boolean value = pass == 0;
+                for (int i = 0; i < stateVars.length; i++) {
+                    if (model.get(i) != value) {
+                        continue;
+                    }
+                    Formula literal = var(vars.get(i));
+                    Formula literalPrime = var(vars.get(i + (numberOfVars / 2)));
+                    if (value) {
+                        System.out.print(stateVars[i] + " ");
+                        counterClause.add(-(i + 1));
                     } else {
-                        counterFormula = and(counterFormula, var(vars.get(v.getNumber() - 1)));
-                        counterFormulaPrime = and(counterFormulaPrime, var(vars.get((v.getNumber() - 1) + (numberOfVars / 2))));
-
-                        counterClause.add(-(v.getNumber()));
+                        literal = neg(literal);
+                        literalPrime = neg(literalPrime);
+                        counterClause.add(i + 1);
                     }
+
+                    counterLiterals.add(literal);
+                    counterLiteralsPrime.add(literalPrime);
                 }
             }
 
             System.out.println();
 
-      /* Loops through the list of variables, adding the negative version of those that are not already in the list as
-      positive variables. This is because the counter example produces all the variables that are true, and all others
-      are false
-       */
-            for (int i = 0; i < (numberOfVars / 2); i++) {
-                boolean isCounterVar = false;
-                for (int j = 0; j < counterVars.size(); j++) {
-                    if (i == counterVars.get(j)) {
-                        isCounterVar = true;
-                    }
-                }
-
-                //If it is not in the list, add it to the formulas and clause
-                if (!isCounterVar) {
-                    counterFormula = and(counterFormula, neg(var(vars.get(i))));
-                    counterFormulaPrime = and(counterFormulaPrime, neg(var(vars.get(i + (numberOfVars / 2)))));
-
-                    counterClause.add(i + 1);
-                }
-            }
-
             //Outputs for testing
-//      System.out.println("Counter Example: " + counterFormula);
-            counterExample = counterFormula;
+//      System.out.println("Counter Example: " + counterExample);
+            counterExample = and(counterLiterals);
 //
-//      System.out.println("Counter Example Primed: " + counterFormulaPrime);
-            counterExamplePrimed = counterFormulaPrime;
+//      System.out.println("Counter Example Primed: " + counterExamplePrimed);
+            counterExamplePrimed = and(counterLiteralsPrime);
 
 //      System.out.println(counterClause);
 
@@ -307,19 +282,7 @@ public class IC3 {
      * @throws IOException
      */
     private static List<List<Integer>> readCNF(String filename) throws IOException {
-        final List<List<Integer>> clauses = Files.lines(Paths.get(filename))
-                // Trim the lines:
-                .map(line -> line.trim().replaceAll("\\s+", " ").trim())
-                // Only parse lines ending with a 0:
-                .filter(line -> line.endsWith(" 0"))
-                // Turn each line into a list of integers:
-                .map(line -> Arrays.stream(line
-                        .substring(0, line.length() - 2)
-                        .trim().split("\\s+"))
-                        .map(Integer::parseInt)
-                        .collect(Collectors.toList())
-                ).collect(Collectors.toList());
-        return clauses;
+        return readDIMACS(Paths.get(filename)).toList();
     }
 
     /**
@@ -332,23 +295,17 @@ public class IC3 {
      * @return The formula computed
      */
     private static Formula listToFormula(List<List<Integer>> clauses, boolean negateFormula, boolean isPrimed) {
-        //Test formula to instantiate the new formula
-        Formula newFormula = or(var(vars.get(0)), var(vars.get(1)));
+        //The clauses are collected and joined by a single 'and' at the end
+        List<Formula> conjuncts = new ArrayList<>();
 
         //Creates a new clause for each list of lists passed in
         for (int j = 0; j < clauses.size(); j++) {
             //Calls method to produce the formula for the clause at j, again stating if negated or primed
             Formula clause = createClause(clauses, negateFormula, isPrimed, j);
-
-            //If j = 0 overwrite the existing formula, otherwise formula because the existing formula and the new clause
-            if (j == 0) {
-                newFormula = clause;
-            } else {
-                newFormula = and(newFormula, clause);
-            }
+            conjuncts.add(clause);
         }
         //Returns the completed formula
-        return newFormula;
+        return conjuncts.size() == 1 ? conjuncts.get(0) : and(conjuncts);
     }
 
     /**
@@ -362,8 +319,8 @@ public class IC3 {
      * @return The new clause as a formula
      */
     private static Formula createClause(List<List<Integer>> clauses, boolean negateFormula, boolean isPrimed, int j) {
-        //Test formula to instantiate the new clause
-        Formula clause = or(var(vars.get(0)), var(vars.get(1)));
+        //The literals are collected and joined by a single 'or' at the end
+        List<Formula> literals = new ArrayList<>();
 
         //Loops through each element in the list of integers to create the clause
         for (int i = 0; i < clauses.get(j).size(); i++) {
@@ -395,23 +352,13 @@ public class IC3 {
        */
             if ((negative && !negateFormula) || (!negative && negateFormula)) {
                 //Negate variable
-                //If the clause is empty set the clause to the element, otherwise add the element via a logical or
-                if (i == 0) {
-                    clause = neg(var(vars.get(pos)));
-                } else {
-                    clause = or(clause, neg(var(vars.get(pos))));
-                }
+                literals.add(neg(var(vars.get(pos))));
             } else {
-                //If the clause is empty set the clause to the element, otherwise add the element via a logical or
-                if (i == 0) {
-                    clause = var(vars.get(pos));
-                } else {
-                    clause = or(clause, var(vars.get(pos)));
-                }
+                literals.add(var(vars.get(pos)));
             }
         }
         //The new clause is returned so it can be combined with any others to form the complete formula
-        return clause;
+        return literals.size() == 1 ? literals.get(0) : or(literals);
     }
 
     /**
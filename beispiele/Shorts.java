@@ -12,13 +12,10 @@ import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Scanner;
 
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.io.IOException;
-import java.util.stream.Collectors;
 
 public class Shorts {
   private static short numberOfVars = 202;
@@ -89,40 +86,34 @@ public class Shorts {
     return satisfiable;
   }
 
-  private static List<List<Short>> readCNF(String filename) throws IOException{
-    final List<List<Short>> clauses = Files.lines(Paths.get(filename))
-            // Trim the lines:
-            .map(line -> line.trim().replaceAll("\\s+", " ").trim())
-            // Only parse lines ending with a 0:
-            .filter(line -> line.endsWith(" 0"))
-            // Turn each line into a list of integers:
-            .map(line -> Arrays.stream(line
-                    .substring(0, line.length() - 2)
-                    .trim().split("\\s+"))
-                    .map(Short::parseShort)
-                    .collect(Collectors.toList())
-            ).collect(Collectors.toList());
+  private static List<List<Short>> readCNF(String filename) throws IOException {
+    final List<List<Short>> clauses = new ArrayList<>();
+    for (List<Integer> clause : readDIMACS(Paths.get(filename)).toList()) {
+      List<Short> c = new ArrayList<>(clause.size());
+      for (Integer y : clause) {
+        //Fail like Short.parseShort did instead of truncating large variable numbers
+        if (y < Short.MIN_VALUE || y > Short.MAX_VALUE) {
+          throw new IOException("Literal " + y + " in " + filename + " is out of range for a short");
+        }
+        c.add(y.shortValue());
+      }
+      clauses.add(c);
+    }
     return clauses;
   }
 
   private static Formula listToFormula(List<List<Short>> clauses, boolean negateFormula, boolean isPrimed) {
-    //Test formula to instantiate the new formula
-    Formula newFormula = or(var(vars.get(0)), var(vars.get(1)));
+    //The clauses are collected and joined by a single 'and' at the end
+    List<Formula> conjuncts = new ArrayList<>();
 
     //Creates a new clause for each list of lists passed in
     for (int j = 0; j < clauses.size(); j++) {
       //Calls method to produce the formula for the clause at j, again stating if negated or primed
       Formula clause = createClause(clauses, negateFormula, isPrimed, j);
-
-      //If j = 0 overwrite the existing formula, otherwise formula because the existing formula and the new clause
-      if (j == 0) {
-        newFormula = clause;
-      } else {
-        newFormula = and(newFormula, clause);
-      }
+      conjuncts.add(clause);
     }
     //Returns the completed formula
-    return newFormula;
+    return conjuncts.size() == 1 ? conjuncts.get(0) : and(conjuncts);
   }
 
   /**
@@ -136,8 +127,8 @@ public class Shorts {
    * @return The new clause as a formula
    */
   private static Formula createClause(List<List<Short>> clauses, boolean negateFormula, boolean isPrimed, int j) {
-    //Test formula to instantiate the new clause
-    Formula clause = or(var(vars.get(0)), var(vars.get(1)));
+    //The literals are collected and joined by a single 'or' at the end
+    List<Formula> literals = new ArrayList<>();
 
     //Loops through each element in the list of integers to create the clause
     for (int i = 0; i < clauses.get(j).size(); i++) {
@@ -171,22 +162,12 @@ public class Shorts {
        */
       if ((negative && !negateFormula) || (!negative && negateFormula)) {
         //Negate variable
-        //If the clause is empty set the clause to the element, otherwise add the element via a logical or
-        if (i == 0) {
-          clause = neg(var(vars.get(pos)));
-        } else {
-          clause = or(clause, neg(var(vars.get(pos))));
-        }
+        literals.add(neg(var(vars.get(pos))));
       } else {
-        //If the clause is empty set the clause to the element, otherwise add the element via a logical or
-        if (i == 0) {
-          clause = var(vars.get(pos));
-        } else {
-          clause = or(clause, var(vars.get(pos)));
-        }
+        literals.add(var(vars.get(pos)));
       }
     }
     //The new clause is returned so it can be combined with any others to form the complete formula
-    return clause;
+    return literals.size() == 1 ? literals.get(0) : or(literals);
   }
 }
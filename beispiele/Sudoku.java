@@ -51,63 +51,50 @@ public class Sudoku {
       }
     }
 
-    // an jeder Stelle eine Zahl
+    // an jeder Stelle genau eine Zahl
     for (int x = 0; x < 9; x++) {
       for (int y = 0; y < 9; y++) {
         List<Formula> l = new LinkedList<Formula>();
         for (int z = 0; z < 10; z++) {
           l.add(var(pos(x, y, z)));
         }
-        conditions.add(or(l));
-      }
-    }
-
-    // nicht zwei Zahlen an der gleichen Stelle
-    for (int x = 0; x < 9; x++) {
-      for (int y = 0; y < 9; y++) {
-        for (int z1 = 0; z1 < 10; z1++) {
-          for (int z2 = z1 + 1; z2 < 10; z2++) {
-            conditions.add(or(neg(var(pos(x, y, z1))), neg(var(pos(x, y, z2)))));
-          }
-        }
+        conditions.add(exactlyOne(l));
       }
     }
 
     // jede Zahl hoechstens einmal in jeder Spalte
     for (int x = 0; x < 9; x++) {
-      for (int y1 = 0; y1 < 9; y1++) {
-        for (int y2 = y1 + 1; y2 < 9; y2++) {
-          for (int z = 0; z < 10; z++) {
-            conditions.add(or(neg(var(pos(x, y1, z))), neg(var(pos(x, y2, z)))));
-          }
+      for (int z = 0; z < 10; z++) {
+        List<Formula> l = new LinkedList<Formula>();
+        for (int y = 0; y < 9; y++) {
+          l.add(var(pos(x, y, z)));
         }
+        conditions.add(atMostOne(l));
       }
     }
 
     // jede Zahl hoechstens einmal in jeder Zeile
     for (int y = 0; y < 9; y++) {
-      for (int x1 = 0; x1 < 9; x1++) {
-        for (int x2 = x1 + 1; x2 < 9; x2++) {
-          for (int z = 0; z < 10; z++) {
-            conditions.add(or(neg(var(pos(x1, y, z))), neg(var(pos(x2, y, z)))));
-          }
+      for (int z = 0; z < 10; z++) {
+        List<Formula> l = new LinkedList<Formula>();
+        for (int x = 0; x < 9; x++) {
+          l.add(var(pos(x, y, z)));
         }
+        conditions.add(atMostOne(l));
       }
     }
 
     // keine Zahl in einem 3x3-Block doppelt
     for (int bx = 0; bx < 3; bx++) {
       for (int by = 0; by < 3; by++) {
-        for (int x1 = 3 * bx; x1 < 3 * bx + 3; x1++) {
-          for (int x2 = x1 + 1; x2 < 3 * bx + 3; x2++) {
-            for (int y1 = 3 * by; y1 < 3 * by + 3; y1++) {
-              for (int y2 = y1 + 1; y2 < 3 * by + 3; y2++) {
-                for (int z = 0; z < 10; z++) {
-                  conditions.add(or(neg(var(pos(x1, y1, z))), neg(var(pos(x2, y2, z)))));
-                }
-              }
+        for (int z = 0; z < 10; z++) {
+          List<Formula> l = new LinkedList<Formula>();
+          for (int x = 3 * bx; x < 3 * bx + 3; x++) {
+            for (int y = 3 * by; y < 3 * by + 3; y++) {
+              l.add(var(pos(x, y, z)));
             }
           }
+          conditions.add(atMostOne(l));
         }
       }
     }
@@ -3,10 +3,12 @@ package beispiele;
 import cnf.Formula;
 import cnf.VarName;
 import static cnf.CNF.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
 import org.sat4j.specs.TimeoutException;
 
@@ -129,26 +131,41 @@ public class ZiegeKohlWolfHirte {
     ZiegeKohlWolfHirte instance = new ZiegeKohlWolfHirte();
 
     Formula f = instance.ziegeWolfKohlHirte(maxZeit);
-    Set<VarName> trueVars = satisfiable(f);
-    if (trueVars == null) {
-      System.out.println("Nicht erfuellbar.");
-    } else {
-      // erfuellbar
+
+    // Alle Loesungen, beschraenkt auf die Positionen der Beteiligten
+    List<VarName> positionen = new ArrayList<VarName>();
+    for (int t = 0; t <= maxZeit; t++) {
+      for (int i = 0; i < 4; i++) {
+        positionen.add(instance.links(i, t));
+        positionen.add(instance.rechts(i, t));
+      }
+    }
+    VarName[] projektion = positionen.toArray(new VarName[0]);
+
+    int anzahl = 0;
+    Iterator<BitSet> loesungen = models(f, projektion).iterator();
+    while (loesungen.hasNext()) {
+      BitSet belegung = loesungen.next();
+      anzahl++;
+      System.out.println("Loesung " + anzahl + ":");
       for (int t = 0; t <= maxZeit; t++) {
         System.out.print("Zeit " + t + ": ");
         for (int i = 0; i < 4; i++) {
-          if (trueVars.contains(instance.links(i, t))) {
+          if (belegung.get(8 * t + 2 * i)) {
             System.out.print("" + namen[i] + " ");
           }
         }
         System.out.print(" |~~~~~Fluss~~~~~| ");
         for (int i = 0; i < 4; i++) {
-          if (trueVars.contains(instance.rechts(i, t))) {
+          if (belegung.get(8 * t + 2 * i + 1)) {
             System.out.print("" + namen[i] + " ");
           }
         }
         System.out.println();
       }
     }
+    if (anzahl == 0) {
+      System.out.println("Nicht erfuellbar.");
+    }
   }
 }
@@ -0,0 +1,182 @@
+package cnf;
+
+import org.sat4j.specs.IConstr;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.Lbool;
+import org.sat4j.specs.SearchListener;
+
+/**
+ * Budget fuer eine oder mehrere Erfuellbarkeitspruefungen.
+ * <p>
+ * Ein Budget begrenzt jede einzelne Pruefung, der es uebergeben wird,
+ * auf eine Hoechstdauer und/oder eine Hoechstzahl von Konflikten des
+ * Solvers. Ist eine Grenze erreicht, wird die Pruefung abgebrochen und
+ * liefert {@code SatResult.UNKNOWN}. Ohne gesetzte Grenzen ist das
+ * Budget unbeschraenkt.
+ * <p>
+ * Mit {@code cancel()} koennen alle laufenden und kuenftigen Pruefungen
+ * mit diesem Budget von einem beliebigen Thread aus beendet werden. Der
+ * Solver prueft dies in jedem Schritt seiner Suche und bricht dann
+ * geordnet ab; eine Sitzung bleibt danach weiter benutzbar.
+ * <p>
+ * Die Grenzen werden bei jeder Pruefung neu gezaehlt, so dass dasselbe
+ * Budget fuer viele Anfragen und auch von mehreren Threads zugleich
+ * benutzt werden kann.
+ */
+public final class Budget {
+
+  private volatile long timeoutMs;
+  private volatile long maxConflicts;
+  private volatile boolean cancelled;
+  // uebergeordnetes Budget oder null; wird es abgebrochen, so auch dieses
+  private final Budget parent;
+
+  /**
+   * Erzeugt ein unbeschraenktes Budget.
+   */
+  public Budget() {
+    timeoutMs = 0;
+    maxConflicts = 0;
+    cancelled = false;
+    parent = null;
+  }
+
+  // Budget mit den Grenzen von parent (darf null sein), das zusaetzlich
+  // abgebrochen ist, sobald parent abgebrochen wird
+  Budget(Budget parent) {
+    timeoutMs = parent == null ? 0 : parent.timeoutMs;
+    maxConflicts = parent == null ? 0 : parent.maxConflicts;
+    cancelled = false;
+    this.parent = parent;
+  }
+
+  /**
+   * Begrenzt jede Pruefung auf {@code ms} Millisekunden;
+   * {@code 0} hebt die Grenze auf.
+   *
+   * @return dieses Budget
+   */
+  public Budget setTimeoutMs(long ms) {
+    if (ms < 0) {
+      throw new IllegalArgumentException("Zeitgrenze darf nicht negativ sein!");
+    }
+    timeoutMs = ms;
+    return this;
+  }
+
+  /**
+   * Begrenzt jede Pruefung auf {@code n} Konflikte des Solvers;
+   * {@code 0} hebt die Grenze auf.
+   *
+   * @return dieses Budget
+   */
+  public Budget setMaxConflicts(long n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("Konfliktgrenze darf nicht negativ sein!");
+    }
+    maxConflicts = n;
+    return this;
+  }
+
+  public long getTimeoutMs() {
+    return timeoutMs;
+  }
+
+  public long getMaxConflicts() {
+    return maxConflicts;
+  }
+
+  /**
+   * Beendet alle laufenden Pruefungen mit diesem Budget so bald wie
+   * moeglich; kuenftige Pruefungen liefern sofort
+   * {@code SatResult.UNKNOWN}. Kann von jedem Thread aus aufgerufen
+   * werden.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled || (parent != null && parent.isCancelled());
+  }
+
+  // Erzeugt den Beobachter fuer eine einzelne Pruefung mit solver; budget
+  // darf null sein (keine Grenzen).
+  static SearchListener listener(ISolver solver, Budget budget) {
+    return new Listener(solver, budget);
+  }
+
+  // Beobachtet die Suche des Solvers und laesst dessen Zeitgrenze sofort
+  // ablaufen, sobald das Budget erschoepft ist. Dies geschieht im Thread
+  // des Solvers, waehrend er sucht; eine von aussen gesetzte Zeitgrenze
+  // koennte dagegen beim Start der Suche ueberschrieben werden.
+  private static final class Listener implements SearchListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ISolver solver;
+    private final transient Budget budget;
+    private final long deadline;
+    private final long maxConflicts;
+    private long conflicts;
+
+    Listener(ISolver solver, Budget budget) {
+      this.solver = solver;
+      this.budget = budget;
+      long ms = budget == null ? 0 : budget.timeoutMs;
+      this.deadline = ms == 0 ? 0 : System.nanoTime() + ms * 1000000L;
+      this.maxConflicts = budget == null ? 0 : budget.maxConflicts;
+      this.conflicts = 0;
+    }
+
+    private void check() {
+      if (budget == null) {
+        return;
+      }
+      if (budget.isCancelled()
+              || (maxConflicts != 0 && conflicts >= maxConflicts)
+              || (deadline != 0 && System.nanoTime() - deadline >= 0)) {
+        solver.expireTimeout();
+      }
+    }
+
+    public void beginLoop() {
+      check();
+    }
+
+    public void conflictFound(IConstr confl) {
+      conflicts++;
+      check();
+    }
+
+    public void assuming(int p) {
+    }
+
+    public void propagating(int p, IConstr reason) {
+    }
+
+    public void backtracking(int p) {
+    }
+
+    public void adding(int p) {
+    }
+
+    public void learn(IConstr c) {
+    }
+
+    public void delete(int[] clause) {
+    }
+
+    public void conflictFound(int p) {
+    }
+
+    public void solutionFound() {
+    }
+
+    public void start() {
+    }
+
+    public void end(Lbool result) {
+    }
+  }
+}
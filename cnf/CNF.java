@@ -1,23 +1,24 @@
 package cnf;
 
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
-import org.sat4j.core.VecInt;
-import org.sat4j.minisat.SolverFactory;
-import org.sat4j.specs.ContradictionException;
-import org.sat4j.specs.IProblem;
-import org.sat4j.specs.ISolver;
+import java.util.stream.Stream;
 import org.sat4j.specs.TimeoutException;
 
 /**
  * Methoden zur Konstruktion von aussagenlogischen
  * Formeln sowie zum Aufruf eines SAT-Solvers.
  * <p>
- * Diese Klasse ist das gesamte oeffentliche Interface des
- * Pakets {@code cnf}. Die anderen Klassen stellen kein
- * oeffentliches Interface bereit.
+ * Diese Klasse ist der Einstiegspunkt des Pakets {@code cnf}. Die
+ * uebrigen oeffentlichen Klassen ({@code CnfContext},
+ * {@code SatSession}, {@code ClauseBlock}, {@code Encoding},
+ * {@code Budget}, {@code SatResult}, {@code Portfolio},
+ * {@code Evaluator}, {@code Preprocessor} und die Klauselempfaenger)
+ * werden ueber sie erzeugt oder an sie uebergeben. Die anderen Klassen
+ * stellen kein oeffentliches Interface bereit.
  */
 public class CNF {
 
@@ -26,6 +27,20 @@ public class CNF {
   private CNF() {
   }
 
+  // Eindeutigkeitstabelle aller Formelknoten; muss vor den Konstanten
+  // initialisiert werden
+  static final FormulaTable formulas = new FormulaTable();
+
+  /**
+   * Die Konstante "wahr", die leere Konjunktion.
+   */
+  public static final Formula TRUE = formulas.intern(new FormulaAnd(new Formula[0]));
+
+  /**
+   * Die Konstante "falsch", die leere Disjunktion.
+   */
+  public static final Formula FALSE = formulas.intern(new FormulaOr(new Formula[0]));
+
   /**
    * Erzeugt die Formel, die durch eine aussagenlogische Variable
    * gegeben ist.
@@ -36,48 +51,110 @@ public class CNF {
     if (name == null) {
       throw new NullPointerException("Variablenname darf nicht `null' sein!");
     }
-    return new FormulaVar(name);
+    return formulas.intern(new FormulaVar(name));
   }
 
   /**
    * Erzeugt die Negation einer gegbenen Formel.
    */
   public static Formula neg(Formula f) {
-    return new FormulaNeg(f);
+    checkNotNull(f);
+    return formulas.intern(new FormulaNeg(f));
   }
 
   /**
    * Erzeugt die Konjunktion zweier Formeln.
+   * <p>
+   * Ist eine der Formeln selbst eine Konjunktion, so werden deren
+   * Teilformeln direkt uebernommen: {@code and(and(a, b), c)} ergibt
+   * dieselbe Formel wie {@code and(a, b, c)}.
+   * <p>
+   * Dabei werden die Teilformeln jedesmal kopiert; wer eine Konjunktion
+   * Glied fuer Glied aufbaut, sollte die Glieder sammeln und
+   * {@code and(List)} benutzen, sonst waechst der Aufwand quadratisch.
    */
   public static Formula and(Formula f1, Formula f2) {
-    List<Formula> fms = new LinkedList<Formula>();
-    fms.add(f1);
-    fms.add(f2);
-    return new FormulaAnd(fms);
+    return formulas.intern(new FormulaAnd(children(new Formula[]{f1, f2}, true)));
   }
 
   /**
    * Erzeugt die Konjunktion einer Liste von Formeln.
+   * Geschachtelte Konjunktionen werden wie bei {@code and(f1, f2)}
+   * aufgeloest.
    */
   public static Formula and(List<Formula> fms) {
-    return new FormulaAnd(fms);
+    return formulas.intern(new FormulaAnd(children(fms.toArray(new Formula[0]), true)));
   }
 
   /**
    * Erzeugt die Disjunktion zweier Formeln.
+   * <p>
+   * Ist eine der Formeln selbst eine Disjunktion, so werden deren
+   * Teilformeln direkt uebernommen: {@code or(or(a, b), c)} ergibt
+   * dieselbe Formel wie {@code or(a, b, c)}.
+   * <p>
+   * Dabei werden die Teilformeln jedesmal kopiert; wer eine Disjunktion
+   * Glied fuer Glied aufbaut, sollte die Glieder sammeln und
+   * {@code or(List)} benutzen, sonst waechst der Aufwand quadratisch.
    */
   public static Formula or(Formula f1, Formula f2) {
-    List<Formula> fms = new LinkedList<Formula>();
-    fms.add(f1);
-    fms.add(f2);
-    return new FormulaOr(fms);
+    return formulas.intern(new FormulaOr(children(new Formula[]{f1, f2}, false)));
   }
 
   /**
    * Erzeugt die Disjunktion einer Liste von Formeln.
+   * Geschachtelte Disjunktionen werden wie bei {@code or(f1, f2)}
+   * aufgeloest.
    */
   public static Formula or(List<Formula> fms) {
-    return new FormulaOr(fms);
+    return formulas.intern(new FormulaOr(children(fms.toArray(new Formula[0]), false)));
+  }
+
+  // Teilformeln einer Konjunktion (and == true) bzw. Disjunktion; Teilformeln
+  // gleicher Art werden durch ihre eigenen Teilformeln ersetzt. Das Ergebnis
+  // ist stets ein neues Feld, damit spaetere Aenderungen beim Aufrufer die
+  // Formel nicht veraendern.
+  private static Formula[] children(Formula[] fms, boolean and) {
+    int n = 0;
+    boolean nested = false;
+    for (Formula f : fms) {
+      checkNotNull(f);
+      if (and && f instanceof FormulaAnd) {
+        n += ((FormulaAnd) f).fms.length;
+        nested = true;
+      } else if (!and && f instanceof FormulaOr) {
+        n += ((FormulaOr) f).fms.length;
+        nested = true;
+      } else {
+        n++;
+      }
+    }
+    if (!nested) {
+      return fms;
+    }
+    Formula[] flat = new Formula[n];
+    int i = 0;
+    for (Formula f : fms) {
+      Formula[] sub = null;
+      if (and && f instanceof FormulaAnd) {
+        sub = ((FormulaAnd) f).fms;
+      } else if (!and && f instanceof FormulaOr) {
+        sub = ((FormulaOr) f).fms;
+      }
+      if (sub != null) {
+        System.arraycopy(sub, 0, flat, i, sub.length);
+        i += sub.length;
+      } else {
+        flat[i++] = f;
+      }
+    }
+    return flat;
+  }
+
+  private static void checkNotNull(Formula f) {
+    if (f == null) {
+      throw new NullPointerException("Formel darf nicht `null' sein!");
+    }
   }
 
   /**
@@ -109,6 +186,84 @@ public class CNF {
     return or(and(fm1, neg(fm2)), and(neg(fm1), fm2));
   }
 
+  /**
+   * Erzeugt die Formel "hoechstens eine der Formeln in {@code fms} ist
+   * wahr".
+   * <p>
+   * Fuer wenige Formeln werden alle Paare ausgeschlossen, fuer viele wird
+   * die Commander-Kodierung benutzt, die nur linear viele Klauseln
+   * erzeugt. Die Formel ist aequivalent zur Bedingung und enthaelt keine
+   * neuen Variablen; sie kann daher auch negiert werden.
+   */
+  public static Formula atMostOne(List<Formula> fms) {
+    return Cardinality.atMostOne(operands(fms));
+  }
+
+  /**
+   * Erzeugt die Formel "genau eine der Formeln in {@code fms} ist wahr";
+   * siehe {@code atMostOne}.
+   */
+  public static Formula exactlyOne(List<Formula> fms) {
+    Formula[] arr = operands(fms);
+    return and(Cardinality.atLeastK(arr, 1), Cardinality.atMostOne(arr));
+  }
+
+  /**
+   * Erzeugt die Formel "hoechstens {@code k} der Formeln in {@code fms}
+   * sind wahr". Fuer {@code k > 1} wird ein sequentieller Zaehler mit
+   * {@code O(n k)} Teilformeln benutzt; wie bei {@code atMostOne}
+   * entstehen keine neuen Variablen.
+   */
+  public static Formula atMostK(List<Formula> fms, int k) {
+    return Cardinality.atMostK(operands(fms), k);
+  }
+
+  /**
+   * Erzeugt die Formel "mindestens {@code k} der Formeln in {@code fms}
+   * sind wahr"; siehe {@code atMostK}.
+   */
+  public static Formula atLeastK(List<Formula> fms, int k) {
+    return Cardinality.atLeastK(operands(fms), k);
+  }
+
+  private static Formula[] operands(List<Formula> fms) {
+    Formula[] arr = fms.toArray(new Formula[0]);
+    for (Formula f : arr) {
+      checkNotNull(f);
+    }
+    return arr;
+  }
+
+  /**
+   * Wertet {@code f} unter der Belegung {@code assignment} aus, ohne
+   * SAT-Solver: die Variable mit {@code getNumber() == n} ist genau dann
+   * wahr, wenn Bit {@code n} gesetzt ist. Fuer Pruefungen, ob ein
+   * vollstaendig bekannter Zustand eine Formel erfuellt, ist dies
+   * wesentlich schneller als {@code satisfiable}.
+   */
+  public static boolean evaluate(Formula f, BitSet assignment) {
+    checkNotNull(f);
+    return evaluators.get().evaluate(f, assignment);
+  }
+
+  // ein wiederverwendbarer Auswerter je Thread
+  private static final ThreadLocal<Evaluator> evaluators =
+          ThreadLocal.withInitial(Evaluator::new);
+
+  /**
+   * Gibt eine zu {@code f} aequivalente, vereinfachte Formel zurueck.
+   * <p>
+   * Konstanten werden ausgewertet, doppelte Negationen und mehrfache
+   * Teilformeln entfernt, absorbierte Teilformeln weggelassen und
+   * komplementaere Teilformeln wie in {@code and(a, neg(a))} erkannt.
+   * Alle Methoden, die Formeln kodieren, vereinfachen sie vorher auf
+   * diese Weise.
+   */
+  public static Formula simplify(Formula f) {
+    checkNotNull(f);
+    return new Simplifier().simplify(f);
+  }
+
   /**
    * Gibt eine zur uebergebenen Formel erfuellbarkeitsaequivalente
    * Formel in CNF zurueck. 
@@ -120,9 +275,14 @@ public class CNF {
    * @return Formel in CNF, welche zu f erfuellbarkeitsaequivalent ist.
    */
   public static Formula cnf(Formula f) {
-    TseitinVisitor tseitinVisitor = new TseitinVisitor();
-    Integer x = f.accept(tseitinVisitor);
-    return tseitinVisitor.getResultFormula(x);
+    return cnf(f, Encoding.TSEITIN);
+  }
+
+  /**
+   * Wie {@code cnf(f)}, mit dem angegebenen Kodierungsverfahren.
+   */
+  public static Formula cnf(Formula f, Encoding encoding) {
+    return global.cnf(f, encoding);
   }
 
   /**
@@ -130,9 +290,14 @@ public class CNF {
    * Formel in CNF als String im DIMACS zurueck.
    */
   public static String cnfDIMACS(Formula f) {
-    TseitinVisitor tseitinVisitor = new TseitinVisitor();
-    Integer x = f.accept(tseitinVisitor);
-    return tseitinVisitor.getResultDIMACS(x);
+    return cnfDIMACS(f, Encoding.TSEITIN);
+  }
+
+  /**
+   * Wie {@code cnfDIMACS(f)}, mit dem angegebenen Kodierungsverfahren.
+   */
+  public static String cnfDIMACS(Formula f, Encoding encoding) {
+    return global.cnfDIMACS(f, encoding);
   }
 
   /**
@@ -149,67 +314,290 @@ public class CNF {
    *         unerfuellbar ist.
    */
   public static Set<VarName> satisfiable(Formula f) throws TimeoutException {
-    TseitinVisitor tseitinVisitor = new TseitinVisitor();
-    Integer x = f.accept(tseitinVisitor);
-    Set<Set<Integer>> clauses = tseitinVisitor.getClauses();
-
-    int maxVar = nextName;
-
-    ISolver solver = SolverFactory.newDefault();
-
-    solver.newVar(maxVar);
-    solver.setExpectedNumberOfClauses(clauses.size());
-    try {
-      solver.addClause(new VecInt(new int[]{x}));
-      for (Set<Integer> c : clauses) {
-        int[] carr = new int[c.size()];
-        int i = 0;
-        for (Integer y : c) {
-          carr[i] = y;
-          i++;
-        }
-        solver.addClause(new VecInt(carr));
-      }
-    } catch (ContradictionException ex) {
-      return null; // unsat
-    }
+    return satisfiable(f, null, Encoding.TSEITIN);
+  }
 
-    IProblem problem = solver;
-    if (problem.isSatisfiable()) {
-      int[] model = problem.model();
-      Set<VarName> trueVars = new HashSet<VarName>();
-      for (Integer y : model) {
-        if (y > 0) {
-          trueVars.add(new VarName(y));
-        }
-      }
-      return trueVars;
-    } else {
-      return null;
-    }
+  /**
+   * Wie {@code satisfiable(f)}, mit dem angegebenen Kodierungsverfahren.
+   */
+  public static Set<VarName> satisfiable(Formula f, Encoding encoding)
+          throws TimeoutException {
+    return satisfiable(f, null, encoding);
+  }
+
+  /**
+   * Ueberprueft die Konjunktion der Klauseln in {@code clauses} auf
+   * Erfuellbarkeit. Die Klauseln werden unveraendert an den SAT-Solver
+   * uebergeben, ohne Tseitin-Kodierung.
+   *
+   * @param clauses Klauseln; Literale beziehen sich auf die Nummern
+   *                der Variablen ({@code VarName.getNumber()})
+   * @throws TimeoutException
+   * @return Menge der Variablen, die in einer erfuellenden Belegung
+   *         wahr sind; oder {@code null} bei Unerfuellbarkeit.
+   */
+  public static Set<VarName> satisfiable(ClauseBlock clauses) throws TimeoutException {
+    return satisfiable(null, clauses, Encoding.TSEITIN);
+  }
+
+  /**
+   * Ueberprueft die Konjunktion der Formel {@code f} und der Klauseln in
+   * {@code clauses} auf Erfuellbarkeit. Nur {@code f} wird Tseitin-kodiert;
+   * die Klauseln werden unveraendert an den SAT-Solver uebergeben.
+   *
+   * @param f Formel oder {@code null}
+   * @param clauses Klauseln oder {@code null}
+   * @throws TimeoutException
+   * @return Menge der Variablen, die in einer erfuellenden Belegung
+   *         wahr sind; oder {@code null} bei Unerfuellbarkeit.
+   */
+  public static Set<VarName> satisfiable(Formula f, ClauseBlock clauses)
+          throws TimeoutException {
+    return satisfiable(f, clauses, Encoding.TSEITIN);
+  }
+
+  /**
+   * Wie {@code satisfiable(f, clauses)}; {@code f} wird mit dem
+   * angegebenen Verfahren kodiert.
+   */
+  public static Set<VarName> satisfiable(Formula f, ClauseBlock clauses,
+          Encoding encoding) throws TimeoutException {
+    return global.satisfiable(f, clauses, encoding);
+  }
+
+  /**
+   * Ueberprueft {@code f} auf Erfuellbarkeit, aber hoechstens im Rahmen
+   * des Budgets {@code budget} (Zeit, Konflikte, Abbruch von aussen).
+   * <p>
+   * Wird eine erfuellende Belegung gebraucht, so ist eine Sitzung
+   * ({@code session().check(budget)}) zu verwenden.
+   *
+   * @param f Formel
+   * @param budget Grenzen fuer diese Pruefung
+   * @return {@code SAT}, {@code UNSAT}, oder {@code UNKNOWN}, wenn das
+   *         Budget vorher erschoepft war
+   */
+  public static SatResult check(Formula f, Budget budget) {
+    return global.check(f, null, budget);
+  }
+
+  /**
+   * Wie {@code check(f, budget)} fuer die Konjunktion von {@code f} und
+   * den Klauseln in {@code clauses}; beide duerfen {@code null} sein.
+   */
+  public static SatResult check(Formula f, ClauseBlock clauses, Budget budget) {
+    return global.check(f, clauses, budget);
+  }
+
+  /**
+   * Ueberprueft {@code f} wie {@code satisfiable(f)} auf Erfuellbarkeit,
+   * gibt die gefundene Belegung aber nur fuer die Variablen in
+   * {@code vars} zurueck: Bit {@code i} ist genau dann gesetzt, wenn
+   * {@code vars[i]} wahr ist.
+   * <p>
+   * Im Gegensatz zu {@code satisfiable} wird dabei kein Objekt pro
+   * Variable erzeugt, und Hilfsvariablen der Kodierung werden gar nicht
+   * erst betrachtet. Der Aufwand nach dem Loesen ist proportional zur
+   * Laenge von {@code vars}.
+   *
+   * @param f Formel
+   * @param vars Variablen, deren Werte gebraucht werden
+   * @throws TimeoutException
+   * @return Werte der Variablen in {@code vars}; oder {@code null}, wenn
+   *         {@code f} unerfuellbar ist.
+   */
+  public static BitSet model(Formula f, VarName[] vars) throws TimeoutException {
+    return global.model(f, null, vars);
+  }
+
+  /**
+   * Wie {@code model(f, vars)} fuer die Konjunktion von {@code f} und
+   * den Klauseln in {@code clauses}; beide duerfen {@code null} sein.
+   */
+  public static BitSet model(Formula f, ClauseBlock clauses, VarName[] vars)
+          throws TimeoutException {
+    return global.model(f, clauses, vars);
+  }
+
+  /**
+   * Schaltet die Vorverarbeitung fuer {@code satisfiable}, {@code check}
+   * und {@code model} ein oder aus (Voreinstellung: aus).
+   * <p>
+   * Bei eingeschalteter Vorverarbeitung werden die Klauseln vor der
+   * Uebergabe an den SAT-Solver durch einen {@code Preprocessor}
+   * vereinfacht: Einheitspropagation, Entfernen doppelter und
+   * subsumierter Klauseln und Elimination von Hilfsvariablen der
+   * Kodierung. Die zurueckgegebenen Belegungen beziehen sich weiterhin
+   * auf die urspruenglichen Variablen. Sitzungen und Portfolios sind
+   * nicht betroffen.
+   */
+  public static void setPreprocessing(boolean on) {
+    global.setPreprocessing(on);
+  }
+
+  /**
+   * Gibt den Vorverarbeiter der letzten Anfrage des aufrufenden Threads
+   * zurueck, etwa um seine Statistik auszugeben; oder {@code null}, wenn
+   * sie ohne Vorverarbeitung lief.
+   */
+  public static Preprocessor lastPreprocessing() {
+    return global.lastPreprocessing();
+  }
+
+  /**
+   * Liefert nacheinander alle erfuellenden Belegungen von {@code f},
+   * beschraenkt auf die Variablen in {@code projection}; jede Belegung
+   * dieser Variablen erscheint genau einmal. Bit {@code i} einer Belegung
+   * ist genau dann gesetzt, wenn {@code projection[i]} wahr ist.
+   * <p>
+   * Alle Belegungen werden von einem einzigen inkrementellen Solver
+   * bestimmt, der gefundene Belegungen durch zusaetzliche Klauseln
+   * ausschliesst; sie werden erst beim Durchlaufen des Streams berechnet.
+   *
+   * @param limit Hoechstzahl der Belegungen; {@code 0} fuer alle
+   */
+  public static Stream<BitSet> models(Formula f, VarName[] projection, long limit) {
+    return global.models(f, projection, limit);
+  }
+
+  /**
+   * Wie {@code models(f, projection, 0)}: alle Belegungen.
+   */
+  public static Stream<BitSet> models(Formula f, VarName[] projection) {
+    return global.models(f, projection, 0);
+  }
+
+  /**
+   * Bestimmt einen minimalen unerfuellbaren Kern der Konjunktion von
+   * {@code parts}: eine Teilliste, deren Konjunktion unerfuellbar ist,
+   * waehrend sie ohne jedes einzelne ihrer Elemente erfuellbar wird.
+   * <p>
+   * Sind die Teile Literale wie {@code var(x)} oder {@code neg(var(x))},
+   * so nennt der Kern die Variablen, die fuer den Widerspruch gebraucht
+   * werden. Fuer wiederholte Anfragen ueber denselben Formeln ist
+   * {@code SatSession.core()} guenstiger.
+   *
+   * @param parts Formeln, deren Konjunktion geprueft wird
+   * @throws TimeoutException
+   * @return die Elemente des Kerns in der Reihenfolge von {@code parts};
+   *         oder {@code null}, wenn die Konjunktion erfuellbar ist
+   */
+  public static List<Formula> unsatCore(List<Formula> parts) throws TimeoutException {
+    return global.unsatCore(parts);
+  }
+
+  /**
+   * Kodiert die Formel {@code f} mit dem angegebenen Verfahren und
+   * uebergibt jede entstehende Klausel sofort an {@code sink}, zuletzt
+   * die Einheitsklausel, die {@code f} selbst fordert. Die Klauseln
+   * werden dabei nicht gesammelt, so dass auch sehr grosse Kodierungen
+   * ohne entsprechenden Speicherbedarf erzeugt werden koennen.
+   *
+   * @return Literal, das {@code f} repraesentiert
+   */
+  public static int encode(Formula f, Encoding encoding, ClauseSink sink) {
+    return global.encode(f, encoding, sink);
+  }
+
+  /**
+   * Schreibt eine zu {@code f} erfuellbarkeitsaequivalente Formel in CNF
+   * im DIMACS-Format in die Datei {@code path}. Die Klauseln werden
+   * beim Kodieren direkt in die Datei geschrieben.
+   */
+  public static void writeDIMACS(Formula f, Encoding encoding, Path path)
+          throws IOException {
+    global.writeDIMACS(f, encoding, path);
+  }
+
+  /**
+   * Liest die Klauseln der DIMACS-Datei {@code path}.
+   * <p>
+   * Kommentarzeilen werden uebersprungen; Klauseln enden mit {@code 0}
+   * und duerfen sich ueber mehrere Zeilen erstrecken. Die Datei wird in
+   * den Speicher abgebildet und ohne Zwischenobjekte direkt in den
+   * Klauselblock gelesen; grosse Dateien werden in Stuecken parallel
+   * gelesen. Die Angaben der Kopfzeile werden nicht geprueft.
+   *
+   * @throws IOException wenn die Datei nicht gelesen werden kann oder
+   *                     kein gueltiges DIMACS enthaelt
+   */
+  public static ClauseBlock readDIMACS(Path path) throws IOException {
+    return DimacsReader.read(path, false);
+  }
+
+  /**
+   * Wie {@code readDIMACS(path)}; mit {@code validate == true} muss die
+   * Datei eine Kopfzeile haben, deren Anzahl der Klauseln genau stimmt
+   * und deren Anzahl der Variablen von keinem Literal ueberschritten
+   * wird, sonst wird eine {@code IOException} geworfen.
+   */
+  public static ClauseBlock readDIMACS(Path path, boolean validate)
+          throws IOException {
+    return DimacsReader.read(path, validate);
+  }
+
+  /**
+   * Erzeugt eine neue inkrementelle Sitzung mit einem eigenen SAT-Solver.
+   * <p>
+   * Fuer viele aehnliche Anfragen ueber denselben Formeln ist eine
+   * Sitzung deutlich schneller als wiederholte Aufrufe von
+   * {@code satisfiable}, da der Solver und die geladenen Klauseln
+   * erhalten bleiben.
+   */
+  public static SatSession session() {
+    return global.session(Encoding.TSEITIN);
+  }
+
+  /**
+   * Wie {@code session()}; Formeln werden in der Sitzung mit dem
+   * angegebenen Verfahren kodiert.
+   */
+  public static SatSession session(Encoding encoding) {
+    return global.session(encoding);
+  }
+
+  /**
+   * Erzeugt ein Portfolio, das jede Anfrage mit mehreren verschieden
+   * konfigurierten Solvern parallel bearbeitet und die erste Antwort
+   * uebernimmt.
+   *
+   * @param configurations Namen der SAT4J-Konfigurationen, etwa
+   *        {@code "Glucose"}; ohne Angabe wird eine Standardauswahl
+   *        benutzt
+   */
+  public static Portfolio portfolio(String... configurations) {
+    return global.portfolio(configurations);
+  }
+
+  /**
+   * Erzeugt einen neuen Kontext mit eigener Variablennummerierung.
+   * <p>
+   * Unabhaengige Aufgaben, die parallel in verschiedenen Threads laufen,
+   * sollten je einen eigenen Kontext benutzen.
+   */
+  public static CnfContext context() {
+    return new CnfContext(new VarPool());
   }
 
   /**
    * Erzeugt eine neue Variable.
    */
   public static VarName freshVarName() {
-    return new VarName();
+    return global.freshVarName();
   }
 
   /**
    * Setzt den Variablennamengenerator zurueck.
    * Nach einem reset() sollte keine Formel mehr benutzt werden, die
-   * davor erzeugt wurde.
+   * davor erzeugt wurde. Betroffen ist nur der gemeinsame Kontext der
+   * statischen Methoden, nicht die mit {@code context()} erzeugten.
    */
   public static void reset() {
-    nextName = 1;
+    global.reset();
   }
 
-  static int nextName = 1;
-
-  static int freshName() {
-    return nextName++;
-  }
+  // Kontext der statischen Methoden; sein Variablenpool ist threadsicher
+  static final CnfContext global = new CnfContext(new SharedVarPool());
 
 
 }
@@ -0,0 +1,115 @@
+package cnf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formeln fuer Kardinalitaetsbedingungen ("hoechstens/mindestens k der
+ * Formeln sind wahr").
+ * <p>
+ * Alle Konstruktionen sind aequivalent zur jeweiligen Bedingung und
+ * kommen ohne neue Variablen aus; Zwischenergebnisse sind gemeinsame
+ * Teilformeln, die bei der Tseitin-Kodierung je eine Hilfsvariable
+ * erhalten. Dadurch koennen die Formeln wie alle anderen negiert und
+ * verknuepft werden. Verfahren nach Groesse:
+ * <ul>
+ * <li>hoechstens eine von wenigen Formeln: paarweise, {@code n(n-1)/2}
+ *     binaere Klauseln;</li>
+ * <li>hoechstens eine von vielen Formeln: Commander-Kodierung mit
+ *     Dreiergruppen, linear viele Klauseln;</li>
+ * <li>allgemeines {@code k}: sequentieller Zaehler, {@code O(n k)}
+ *     Teilformeln.</li>
+ * </ul>
+ */
+final class Cardinality {
+
+  // bis zu dieser Anzahl wird "hoechstens eine" paarweise kodiert
+  private static final int PAIRWISE_LIMIT = 6;
+
+  // Gruppengroesse der Commander-Kodierung
+  private static final int GROUP_SIZE = 3;
+
+  private Cardinality() {
+  }
+
+  static Formula atMostOne(Formula[] fms) {
+    if (fms.length <= 1) {
+      return CNF.TRUE;
+    }
+    if (fms.length <= PAIRWISE_LIMIT) {
+      List<Formula> pairs = new ArrayList<Formula>();
+      for (int i = 0; i < fms.length; i++) {
+        for (int j = i + 1; j < fms.length; j++) {
+          pairs.add(CNF.or(CNF.neg(fms[i]), CNF.neg(fms[j])));
+        }
+      }
+      return CNF.and(pairs);
+    }
+    // Commander: hoechstens eine je Gruppe, und hoechstens eine Gruppe
+    // enthaelt eine wahre Formel
+    int groups = (fms.length + GROUP_SIZE - 1) / GROUP_SIZE;
+    List<Formula> conditions = new ArrayList<Formula>();
+    Formula[] commanders = new Formula[groups];
+    for (int g = 0; g < groups; g++) {
+      int from = g * GROUP_SIZE;
+      int to = Math.min(from + GROUP_SIZE, fms.length);
+      Formula[] group = new Formula[to - from];
+      System.arraycopy(fms, from, group, 0, group.length);
+      conditions.add(atMostOne(group));
+      commanders[g] = group.length == 1 ? group[0] : CNF.or(Arrays.asList(group));
+    }
+    conditions.add(atMostOne(commanders));
+    return CNF.and(conditions);
+  }
+
+  static Formula atLeastK(Formula[] fms, int k) {
+    if (k <= 0) {
+      return CNF.TRUE;
+    }
+    if (k > fms.length) {
+      return CNF.FALSE;
+    }
+    if (k == 1) {
+      return fms.length == 1 ? fms[0] : CNF.or(Arrays.asList(fms));
+    }
+    // sum[j]: "mindestens j der ersten i Formeln sind wahr" fuer
+    // j = 1..min(i, k); fuer j > i ist die Aussage falsch (null)
+    Formula[] sum = new Formula[k + 1];
+    for (int i = 0; i < fms.length; i++) {
+      Formula x = fms[i];
+      for (int j = Math.min(i + 1, k); j >= 1; j--) {
+        Formula carry = j == 1 ? x : CNF.and(x, sum[j - 1]);
+        sum[j] = sum[j] == null ? carry : binaryOr(sum[j], carry);
+      }
+    }
+    return sum[k];
+  }
+
+  // Disjunktion zweier Formeln ohne Aufloesen geschachtelter Disjunktionen;
+  // sonst wuerde jedes sum[j] alle vorigen Teilformeln erneut aufzaehlen
+  // und der Zaehler quadratisch gross
+  private static Formula binaryOr(Formula f1, Formula f2) {
+    return CNF.formulas.intern(new FormulaOr(new Formula[]{f1, f2}));
+  }
+
+  static Formula atMostK(Formula[] fms, int k) {
+    if (k < 0) {
+      return CNF.FALSE;
+    }
+    if (k >= fms.length) {
+      return CNF.TRUE;
+    }
+    if (k == 0) {
+      List<Formula> l = new ArrayList<Formula>();
+      for (Formula f : fms) {
+        l.add(CNF.neg(f));
+      }
+      return l.size() == 1 ? l.get(0) : CNF.and(l);
+    }
+    if (k == 1) {
+      return atMostOne(fms);
+    }
+    return CNF.neg(atLeastK(fms, k + 1));
+  }
+}
@@ -0,0 +1,320 @@
+package cnf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Kompakte Speicherung einer Menge von Klauseln.
+ * <p>
+ * Die Literale aller Klauseln liegen hintereinander in einem einzigen
+ * {@code int}-Feld; ein zweites Feld haelt fest, wo jede Klausel beginnt.
+ * Literale werden wie im DIMACS-Format angegeben: die Zahl {@code n}
+ * steht fuer die Variable mit {@code getNumber() == n}, {@code -n} fuer
+ * ihre Negation.
+ * <p>
+ * Ein Klauselblock ist zugleich ein {@code ClauseSink}, der alle
+ * uebergebenen Klauseln sammelt.
+ * <p>
+ * Klauselbloecke werden vom SAT-Solver unveraendert uebernommen und
+ * durchlaufen keine Tseitin-Kodierung. Sie eignen sich daher fuer
+ * Eingaben, die bereits in CNF vorliegen, etwa aus DIMACS-Dateien.
+ */
+public final class ClauseBlock implements ClauseSink {
+
+  int[] lits;
+  int[] starts;
+  int size;
+  int maxVar;
+
+  // Hashtabelle (offene Adressierung) der Klauselindizes + 1, nur wenn
+  // doppelte Klauseln verworfen werden sollen; sonst null
+  private int[] index;
+
+  /**
+   * Erzeugt einen leeren Klauselblock.
+   */
+  public ClauseBlock() {
+    this(false);
+  }
+
+  // Mit unique == true werden die Literale jeder Klausel sortiert und
+  // mehrfache Literale entfernt; bereits vorhandene Klauseln werden
+  // nicht erneut angehaengt.
+  ClauseBlock(boolean unique) {
+    lits = new int[64];
+    starts = new int[17];
+    size = 0;
+    maxVar = 0;
+    index = unique ? new int[64] : null;
+  }
+
+  /**
+   * Haengt eine Klausel an.
+   *
+   * @param clause Literale der Klausel
+   */
+  public void add(int... clause) {
+    add(clause, 0, clause.length);
+  }
+
+  /**
+   * Haengt eine Klausel an, die als Liste von Literalen gegeben ist.
+   */
+  public void add(List<Integer> clause) {
+    int[] carr = new int[clause.size()];
+    int i = 0;
+    for (Integer y : clause) {
+      carr[i] = y;
+      i++;
+    }
+    add(carr);
+  }
+
+  /**
+   * Haengt alle Klauseln einer Liste an, wie sie etwa beim Einlesen
+   * von DIMACS-Dateien entsteht.
+   */
+  public void addAll(List<List<Integer>> clauses) {
+    for (List<Integer> c : clauses) {
+      add(c);
+    }
+  }
+
+  /**
+   * Gibt die Klauseln als Liste von Listen von Literalen zurueck, wie sie
+   * {@code addAll} erwartet.
+   */
+  public List<List<Integer>> toList() {
+    List<List<Integer>> result = new ArrayList<List<Integer>>(size);
+    for (int i = 0; i < size; i++) {
+      List<Integer> c = new ArrayList<Integer>(starts[i + 1] - starts[i]);
+      for (int j = starts[i]; j < starts[i + 1]; j++) {
+        c.add(lits[j]);
+      }
+      result.add(c);
+    }
+    return result;
+  }
+
+  public void clause(int[] lits, int from, int to) {
+    add(lits, from, to);
+  }
+
+  /**
+   * Uebergibt alle Klauseln dieses Blocks an {@code sink}.
+   */
+  public void writeTo(ClauseSink sink) {
+    for (int i = 0; i < size; i++) {
+      sink.clause(lits, starts[i], starts[i + 1]);
+    }
+  }
+
+  /**
+   * Gibt die Anzahl der Klauseln zurueck.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gibt den groessten Variablenindex zurueck, der in einem Literal
+   * vorkommt, oder 0 fuer einen leeren Block.
+   */
+  public int maxVar() {
+    return maxVar;
+  }
+
+  /**
+   * Gibt eine Kopie der Literale der {@code i}-ten Klausel zurueck.
+   */
+  public int[] clause(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Klausel " + i + " existiert nicht!");
+    }
+    return Arrays.copyOfRange(lits, starts[i], starts[i + 1]);
+  }
+
+  /**
+   * Prueft, ob die Belegung {@code assignment} alle Klauseln erfuellt.
+   * Das Literal {@code n} ist wahr, wenn Bit {@code n} gesetzt ist,
+   * {@code -n}, wenn es nicht gesetzt ist.
+   */
+  public boolean evaluate(BitSet assignment) {
+    return falsified(assignment) < 0;
+  }
+
+  /**
+   * Gibt den Index der ersten Klausel zurueck, die unter
+   * {@code assignment} falsch ist, oder {@code -1}, wenn alle Klauseln
+   * erfuellt sind; siehe {@code evaluate}.
+   */
+  public int falsified(BitSet assignment) {
+    for (int i = 0; i < size; i++) {
+      boolean sat = false;
+      for (int j = starts[i]; j < starts[i + 1] && !sat; j++) {
+        int y = lits[j];
+        sat = y > 0 ? assignment.get(y) : !assignment.get(-y);
+      }
+      if (!sat) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  void add(int[] clause, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (clause[i] == 0) {
+        throw new IllegalArgumentException("Literal darf nicht 0 sein!");
+      }
+    }
+    if (index != null) {
+      addUnique(clause, from, to);
+      return;
+    }
+    append(clause, from, to);
+  }
+
+  // Haengt die Klauseln von other ab der Klausel from an, ohne sie
+  // einzeln zu kopieren
+  void addAll(ClauseBlock other, int from) {
+    if (index != null) {
+      for (int i = from; i < other.size; i++) {
+        add(other.lits, other.starts[i], other.starts[i + 1]);
+      }
+      return;
+    }
+    int n = other.size - from;
+    if (n <= 0) {
+      return;
+    }
+    int begin = other.starts[from];
+    int count = other.starts[other.size] - begin;
+    int end = starts[size];
+    if (end + count > lits.length) {
+      lits = Arrays.copyOf(lits, Math.max(2 * lits.length, end + count));
+    }
+    if (size + n + 1 > starts.length) {
+      starts = Arrays.copyOf(starts, Math.max(2 * starts.length, size + n + 1));
+    }
+    System.arraycopy(other.lits, begin, lits, end, count);
+    for (int i = 1; i <= n; i++) {
+      starts[size + i] = other.starts[from + i] - begin + end;
+    }
+    size += n;
+    maxVar = Math.max(maxVar, other.maxVar);
+  }
+
+  private void append(int[] clause, int from, int to) {
+    int n = to - from;
+    int end = starts[size];
+    if (end + n > lits.length) {
+      lits = Arrays.copyOf(lits, Math.max(2 * lits.length, end + n));
+    }
+    if (size + 2 > starts.length) {
+      starts = Arrays.copyOf(starts, 2 * starts.length);
+    }
+    for (int i = from; i < to; i++) {
+      int y = clause[i];
+      lits[end++] = y;
+      maxVar = Math.max(maxVar, Math.abs(y));
+    }
+    size++;
+    starts[size] = end;
+  }
+
+  private void addUnique(int[] clause, int from, int to) {
+    // Literale sortiert und ohne Wiederholung ans Ende schreiben; die
+    // Klausel zaehlt erst nach erfolgreicher Suche als angehaengt
+    append(clause, from, to);
+    int start = starts[size - 1];
+    int end = starts[size];
+    if (end - start > 16) {
+      Arrays.sort(lits, start, end);
+    } else {
+      for (int i = start + 1; i < end; i++) {
+        int y = lits[i];
+        int j = i - 1;
+        while (j >= start && lits[j] > y) {
+          lits[j + 1] = lits[j];
+          j--;
+        }
+        lits[j + 1] = y;
+      }
+    }
+    int k = start;
+    for (int i = start; i < end; i++) {
+      if (i == start || lits[i] != lits[k - 1]) {
+        lits[k++] = lits[i];
+      }
+    }
+    end = k;
+    starts[size] = end;
+
+    int mask = index.length - 1;
+    int slot = hash(start, end) & mask;
+    while (index[slot] != 0) {
+      int c = index[slot] - 1;
+      if (sameClause(c, start, end)) {
+        size--;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    index[slot] = size;
+    if (2 * size > index.length) {
+      rehash();
+    }
+  }
+
+  private int hash(int start, int end) {
+    int hash = 1;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + lits[i];
+    }
+    // Literale sind oft fortlaufend nummeriert; ohne Durchmischung
+    // entstehen bei linearer Sondierung lange Ketten
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  private boolean sameClause(int c, int start, int end) {
+    int cs = starts[c];
+    if (starts[c + 1] - cs != end - start) {
+      return false;
+    }
+    for (int i = 0; i < end - start; i++) {
+      if (lits[cs + i] != lits[start + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void rehash() {
+    index = new int[2 * index.length];
+    int mask = index.length - 1;
+    for (int c = 0; c < size; c++) {
+      int slot = hash(starts[c], starts[c + 1]) & mask;
+      while (index[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      index[slot] = c + 1;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      for (int j = starts[i]; j < starts[i + 1]; j++) {
+        s.append(lits[j]);
+        s.append(" ");
+      }
+      s.append("0\n");
+    }
+    return s.toString();
+  }
+}
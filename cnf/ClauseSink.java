@@ -0,0 +1,19 @@
+package cnf;
+
+/**
+ * Empfaenger fuer Klauseln, die bei der Kodierung einer Formel
+ * entstehen.
+ * <p>
+ * Jede Klausel wird genau einmal uebergeben, sobald sie erzeugt ist;
+ * die Klauseln muessen daher nicht erst gesammelt werden. Literale
+ * werden wie im DIMACS-Format angegeben.
+ */
+public interface ClauseSink {
+
+  /**
+   * Nimmt die Klausel mit den Literalen {@code lits[from]} bis
+   * {@code lits[to - 1]} entgegen. Das Feld gehoert dem Aufrufer und
+   * kann nach der Rueckkehr wiederverwendet werden.
+   */
+  void clause(int[] lits, int from, int to);
+}
@@ -0,0 +1,310 @@
+package cnf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Eigenstaendiger Kontext fuer die Vergabe von Variablennummern, die
+ * Tseitin-Kodierung und den Aufruf des SAT-Solvers.
+ * <p>
+ * Jeder Kontext nummeriert seine Variablen und Hilfsvariablen selbst,
+ * beginnend bei 1. Verschiedene Kontexte beeinflussen sich daher nicht,
+ * und unabhaengige Aufgaben koennen in verschiedenen Threads mit je
+ * einem eigenen Kontext ohne Sperren parallel laufen. Ein Kontext selbst
+ * ist nicht synchronisiert und darf nur von einem Thread zugleich
+ * benutzt werden.
+ * <p>
+ * Formeln werden wie gewohnt mit den Methoden der Klasse {@code CNF}
+ * konstruiert; sie sollten aber nur Variablen des Kontexts enthalten,
+ * in dem sie geprueft werden. Die statischen Methoden von {@code CNF}
+ * benutzen einen gemeinsamen, threadsicheren Kontext.
+ * <p>
+ * Die Tabelle der Formelknoten ist allen Kontexten gemeinsam, aber in
+ * Abschnitte mit je eigener Sperre geteilt, so dass parallele Kontexte
+ * beim Erzeugen von Formeln kaum aufeinander warten. Variablen
+ * verschiedener Kontexte mit derselben Nummer sind gleich
+ * ({@code equals}) und ergeben denselben Variablenknoten.
+ * <p>
+ * Kontexte werden mit {@code CNF.context()} erzeugt.
+ */
+public final class CnfContext {
+
+  final VarPool pool;
+  private volatile boolean preprocessing;
+  // Vorverarbeiter der letzten Anfrage je Thread
+  private final ThreadLocal<Preprocessor> lastPreprocessor;
+
+  CnfContext(VarPool pool) {
+    this.pool = pool;
+    this.preprocessing = false;
+    this.lastPreprocessor = new ThreadLocal<Preprocessor>();
+  }
+
+  /**
+   * Erzeugt eine neue Variable dieses Kontexts.
+   */
+  public VarName freshVarName() {
+    return new VarName(pool.freshName());
+  }
+
+  /**
+   * Setzt die Nummerierung dieses Kontexts zurueck.
+   * Nach einem reset() sollte keine Formel mehr benutzt werden, die
+   * davor in diesem Kontext erzeugt wurde. Andere Kontexte sind nicht
+   * betroffen.
+   */
+  public void reset() {
+    pool.reset();
+  }
+
+  /**
+   * Gibt die groesste bisher in diesem Kontext vergebene
+   * Variablennummer zurueck.
+   */
+  public int maxVar() {
+    return pool.maxVar();
+  }
+
+  /**
+   * Schaltet die Vorverarbeitung der Klauseln vor dem Loesen ein oder
+   * aus; siehe {@code CNF.setPreprocessing}.
+   */
+  public void setPreprocessing(boolean on) {
+    preprocessing = on;
+  }
+
+  public boolean isPreprocessing() {
+    return preprocessing;
+  }
+
+  /**
+   * Gibt den Vorverarbeiter der letzten Anfrage dieses Threads in
+   * diesem Kontext zurueck, mit deren Statistik; oder {@code null},
+   * wenn sie ohne Vorverarbeitung lief.
+   */
+  public Preprocessor lastPreprocessing() {
+    return lastPreprocessor.get();
+  }
+
+  /**
+   * Wie {@code CNF.cnf(f, encoding)}, in diesem Kontext.
+   */
+  public Formula cnf(Formula f, Encoding encoding) {
+    TseitinVisitor tseitinVisitor = new TseitinVisitor(pool, encoding);
+    Integer x = tseitinVisitor.encode(new Simplifier().simplify(f));
+    return tseitinVisitor.getResultFormula(x);
+  }
+
+  /**
+   * Wie {@code CNF.cnfDIMACS(f, encoding)}, in diesem Kontext.
+   */
+  public String cnfDIMACS(Formula f, Encoding encoding) {
+    TseitinVisitor tseitinVisitor = new TseitinVisitor(pool, encoding);
+    Integer x = tseitinVisitor.encode(new Simplifier().simplify(f));
+    return tseitinVisitor.getResultDIMACS(x);
+  }
+
+  /**
+   * Wie {@code CNF.encode(f, encoding, sink)}, in diesem Kontext.
+   */
+  public int encode(Formula f, Encoding encoding, ClauseSink sink) {
+    TseitinVisitor tseitinVisitor = new TseitinVisitor(pool, encoding, sink);
+    int x = tseitinVisitor.encode(new Simplifier().simplify(f));
+    sink.clause(new int[]{x}, 0, 1);
+    return x;
+  }
+
+  /**
+   * Wie {@code CNF.writeDIMACS(f, encoding, path)}, in diesem Kontext.
+   */
+  public void writeDIMACS(Formula f, Encoding encoding, Path path)
+          throws IOException {
+    DimacsSink sink = new DimacsSink(path);
+    try {
+      encode(f, encoding, sink);
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    } finally {
+      sink.close();
+    }
+  }
+
+  /**
+   * Wie {@code CNF.satisfiable(f)}, in diesem Kontext.
+   */
+  public Set<VarName> satisfiable(Formula f) throws TimeoutException {
+    return satisfiable(f, null, Encoding.TSEITIN);
+  }
+
+  /**
+   * Wie {@code CNF.satisfiable(f, clauses, encoding)}, in diesem Kontext.
+   */
+  public Set<VarName> satisfiable(Formula f, ClauseBlock clauses,
+          Encoding encoding) throws TimeoutException {
+    ISolver solver = load(f, clauses, encoding);
+    if (solver == null || !solver.isSatisfiable()) {
+      return null;
+    }
+    return trueVars(model(solver));
+  }
+
+  /**
+   * Wie {@code CNF.check(f, clauses, budget)}, in diesem Kontext.
+   */
+  public SatResult check(Formula f, ClauseBlock clauses, Budget budget) {
+    ISolver solver = load(f, clauses, Encoding.TSEITIN);
+    if (solver == null) {
+      return SatResult.UNSAT;
+    }
+    if (budget.isCancelled()) {
+      return SatResult.UNKNOWN;
+    }
+    solver.setSearchListener(Budget.listener(solver, budget));
+    try {
+      return solver.isSatisfiable() ? SatResult.SAT : SatResult.UNSAT;
+    } catch (TimeoutException ex) {
+      return SatResult.UNKNOWN;
+    }
+  }
+
+  /**
+   * Wie {@code CNF.model(f, clauses, vars)}, in diesem Kontext.
+   */
+  public BitSet model(Formula f, ClauseBlock clauses, VarName[] vars)
+          throws TimeoutException {
+    ISolver solver = load(f, clauses, Encoding.TSEITIN);
+    if (solver == null || !solver.isSatisfiable()) {
+      return null;
+    }
+    if (lastPreprocessor.get() != null) {
+      return project(model(solver), vars, new BitSet(vars.length));
+    }
+    return project(solver, vars, new BitSet(vars.length));
+  }
+
+  /**
+   * Wie {@code CNF.unsatCore(parts)}, in diesem Kontext.
+   */
+  public List<Formula> unsatCore(List<Formula> parts) throws TimeoutException {
+    SatSession session = session(Encoding.TSEITIN);
+    if (session.solve(parts)) {
+      return null;
+    }
+    return session.core();
+  }
+
+  /**
+   * Wie {@code CNF.models(f, projection, limit)}, in diesem Kontext.
+   */
+  public Stream<BitSet> models(Formula f, VarName[] projection, long limit) {
+    SatSession session = session(Encoding.TSEITIN);
+    session.add(f);
+    return session.models(projection, limit);
+  }
+
+  /**
+   * Erzeugt eine neue inkrementelle Sitzung in diesem Kontext.
+   */
+  public SatSession session(Encoding encoding) {
+    return new SatSession(this, encoding);
+  }
+
+  /**
+   * Erzeugt ein Solver-Portfolio in diesem Kontext; siehe
+   * {@code CNF.portfolio(String...)}.
+   */
+  public Portfolio portfolio(String... configurations) {
+    return new Portfolio(this, configurations.length == 0
+            ? Portfolio.DEFAULT_CONFIGURATIONS : configurations);
+  }
+
+  // Erzeugt einen Solver, der die Konjunktion von f und clauses enthaelt
+  // (beide duerfen null sein), oder gibt null zurueck, wenn die Klauseln
+  // bereits ohne Suche widerspruechlich sind. Bei eingeschalteter
+  // Vorverarbeitung gehen die Klauseln erst durch einen Vorverarbeiter;
+  // nur die Hilfsvariablen der Kodierung von f werden dabei eliminiert.
+  // Belegungen des Solvers sind dann mit model(solver) zu lesen.
+  ISolver load(Formula f, ClauseBlock clauses, Encoding encoding) {
+    if (clauses != null) {
+      pool.reserve(clauses.maxVar());
+    }
+    ISolver solver = SolverFactory.newDefault();
+    SolverSink sink = new SolverSink(solver);
+    Preprocessor preprocessor = preprocessing ? new Preprocessor(pool.maxVar()) : null;
+    lastPreprocessor.set(preprocessor);
+    ClauseSink target = preprocessor == null ? sink : preprocessor;
+    if (f != null) {
+      encode(f, encoding, target);
+    }
+    if (clauses != null) {
+      clauses.writeTo(target);
+    }
+    if (preprocessor != null) {
+      if (preprocessor.isContradiction()) {
+        return null;
+      }
+      preprocessor.writeTo(sink);
+    }
+    sink.declare(pool.maxVar());
+    if (sink.isContradiction()) {
+      return null;
+    }
+    return solver;
+  }
+
+  // Belegung aller Variablen nach dem letzten erfolgreichen Loesen mit
+  // einem Solver aus load, ggf. um die bei der Vorverarbeitung entfernten
+  // Variablen ergaenzt
+  int[] model(ISolver solver) {
+    Preprocessor preprocessor = lastPreprocessor.get();
+    int[] model = solver.model();
+    return preprocessor == null ? model : preprocessor.extend(model);
+  }
+
+  // Setzt in bits genau die Positionen i, fuer die vars[i] in der zuletzt
+  // gefundenen Belegung von solver wahr ist. Variablen, die der Solver
+  // nicht kennt, gelten als falsch.
+  static BitSet project(ISolver solver, VarName[] vars, BitSet bits) {
+    bits.clear();
+    int n = solver.nVars();
+    for (int i = 0; i < vars.length; i++) {
+      int x = vars[i].number;
+      if (x <= n && solver.model(x)) {
+        bits.set(i);
+      }
+    }
+    return bits;
+  }
+
+  // Wie project(solver, vars, bits), fuer eine Belegung im Format von
+  // SAT4J (Position i enthaelt i + 1 oder -(i + 1))
+  static BitSet project(int[] model, VarName[] vars, BitSet bits) {
+    bits.clear();
+    for (int i = 0; i < vars.length; i++) {
+      int x = vars[i].number;
+      if (x <= model.length && model[x - 1] > 0) {
+        bits.set(i);
+      }
+    }
+    return bits;
+  }
+
+  static Set<VarName> trueVars(int[] model) {
+    Set<VarName> trueVars = new HashSet<VarName>();
+    for (int y : model) {
+      if (y > 0) {
+        trueVars.add(new VarName(y));
+      }
+    }
+    return trueVars;
+  }
+}
@@ -0,0 +1,48 @@
+package cnf;
+
+/**
+ * Klauselempfaenger, der Klauseln nur zaehlt.
+ * <p>
+ * Damit laesst sich die Groesse einer Kodierung bestimmen, ohne die
+ * Klauseln im Speicher zu halten.
+ */
+public final class CountingSink implements ClauseSink {
+
+  private long clauses;
+  private long literals;
+  private int maxVar;
+
+  public void clause(int[] lits, int from, int to) {
+    clauses++;
+    literals += to - from;
+    for (int i = from; i < to; i++) {
+      maxVar = Math.max(maxVar, Math.abs(lits[i]));
+    }
+  }
+
+  /**
+   * Gibt die Anzahl der bisher uebergebenen Klauseln zurueck.
+   */
+  public long clauses() {
+    return clauses;
+  }
+
+  /**
+   * Gibt die Gesamtzahl der Literale in allen Klauseln zurueck.
+   */
+  public long literals() {
+    return literals;
+  }
+
+  /**
+   * Gibt den groessten vorkommenden Variablenindex zurueck.
+   */
+  public int maxVar() {
+    return maxVar;
+  }
+
+  @Override
+  public String toString() {
+    return clauses + " Klauseln, " + literals + " Literale, " + maxVar + " Variablen";
+  }
+}
@@ -0,0 +1,331 @@
+package cnf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Liest Klauseln im DIMACS-Format.
+ * <p>
+ * Die Datei wird in den Speicher abgebildet und Byte fuer Byte gelesen;
+ * die Literale landen direkt im {@code int}-Feld eines Klauselblocks,
+ * ohne Zeichenketten oder Objekte je Literal. Kommentarzeilen
+ * ({@code c ...}) werden uebersprungen, eine Zeile mit {@code %} beendet
+ * die Eingabe, und jede Klausel endet mit {@code 0}, unabhaengig von
+ * Zeilenumbruechen; eine Klausel darf sich also ueber mehrere Zeilen
+ * erstrecken.
+ * <p>
+ * Der Leser ist ein Zustandsautomat: {@code parse} kann mit
+ * aufeinanderfolgenden Stuecken der Eingabe aufgerufen werden, auch wenn
+ * eine Zahl oder Zeile ueber die Grenze zweier Stuecke hinweg reicht.
+ * <p>
+ * Grosse Dateien werden an Zeilenanfaengen in Stuecke geteilt, die
+ * parallel im gemeinsamen Fork-Join-Pool von je einem eigenen Leser
+ * gelesen werden. Eine Klausel, die ueber das Ende eines Stuecks
+ * hinausreicht, bleibt dort unvollstaendig und wird beim Zusammenfuegen
+ * der Stuecke in Dateireihenfolge mit dem Anfang des naechsten Stuecks
+ * verbunden.
+ */
+final class DimacsReader {
+
+  // groesster Ausschnitt der Datei, der auf einmal abgebildet wird
+  private static final long WINDOW = 1L << 30;
+
+  // Mindestgroesse eines parallel gelesenen Stuecks
+  private static final long CHUNK = 1L << 22;
+
+  // Stuecke je Thread, damit ungleich schnelle Stuecke sich ausgleichen
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final ClauseBlock clauses;
+  private int[] clause;
+  private int length;
+
+  // Zahl, die gerade gelesen wird
+  private boolean inNumber;
+  private boolean negative;
+  private int value;
+
+  // true, solange in der aktuellen Zeile nur Leerraum stand
+  private boolean lineStart;
+  private boolean inComment;
+  private StringBuilder header;
+  private boolean end;
+  private long position;
+
+  // Fehler beim parallelen Lesen dieses Stuecks; er zaehlt erst, wenn
+  // kein frueheres Stueck die Eingabe mit % beendet hat
+  private IOException failure;
+
+  private int headerVars;
+  private int headerClauses;
+
+  // Leser fuer die Eingabe ab dem Byte position, das am Anfang einer
+  // Zeile stehen muss
+  DimacsReader(long position) {
+    clauses = new ClauseBlock();
+    clause = new int[16];
+    length = 0;
+    lineStart = true;
+    this.position = position;
+    headerVars = -1;
+    headerClauses = -1;
+  }
+
+  /**
+   * Liest die DIMACS-Datei {@code path} in einen neuen Klauselblock.
+   *
+   * @param validate ob die Anzahl der Klauseln und die groesste Variable
+   *                 mit der Kopfzeile uebereinstimmen muessen
+   */
+  static ClauseBlock read(Path path, boolean validate) throws IOException {
+    List<DimacsReader> readers;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      int threads = ForkJoinPool.getCommonPoolParallelism();
+      if (threads > 1 && size >= 2 * CHUNK) {
+        readers = readChunks(channel, size,
+                (int) Math.min(size / CHUNK, (long) threads * CHUNKS_PER_THREAD));
+      } else {
+        DimacsReader reader = new DimacsReader(0);
+        for (long from = 0; from < size && !reader.end; from += WINDOW) {
+          reader.parse(channel.map(FileChannel.MapMode.READ_ONLY, from,
+                  Math.min(WINDOW, size - from)));
+        }
+        readers = new ArrayList<DimacsReader>();
+        readers.add(reader);
+      }
+    }
+    return merge(readers, validate);
+  }
+
+  // Teilt die Datei an Zeilenanfaengen in hoechstens n Stuecke und liest
+  // sie parallel; die Leser werden in Dateireihenfolge zurueckgegeben
+  private static List<DimacsReader> readChunks(final FileChannel channel,
+          long size, int n) throws IOException {
+    List<Callable<DimacsReader>> tasks = new ArrayList<Callable<DimacsReader>>();
+    long from = 0;
+    for (int k = 1; k <= n && from < size; k++) {
+      long to = k == n ? size : nextLine(channel, size, k * (size / n));
+      if (to <= from) {
+        continue;
+      }
+      final long start = from;
+      final long end = to;
+      tasks.add(() -> {
+        DimacsReader reader = new DimacsReader(start);
+        try {
+          reader.parse(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        } catch (IOException ex) {
+          reader.failure = ex;
+        }
+        return reader;
+      });
+      from = to;
+    }
+    List<DimacsReader> readers = new ArrayList<DimacsReader>();
+    try {
+      for (Future<DimacsReader> f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+        readers.add(f.get());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Einlesen unterbrochen!", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw new IOException(ex.getCause());
+    }
+    return readers;
+  }
+
+  // Position des ersten Zeilenanfangs nach dem Byte at, oder size
+  private static long nextLine(FileChannel channel, long size, long at)
+          throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(1 << 12);
+    long pos = at;
+    while (pos < size) {
+      buf.clear();
+      int n = channel.read(buf, pos);
+      if (n <= 0) {
+        break;
+      }
+      for (int i = 0; i < n; i++) {
+        if (buf.get(i) == '\n') {
+          return pos + i + 1;
+        }
+      }
+      pos += n;
+    }
+    return size;
+  }
+
+  // Fuegt die Klauseln der Leser in ihrer Reihenfolge zusammen; eine
+  // unvollstaendige Klausel am Ende eines Stuecks wird mit der ersten
+  // Klausel des folgenden verbunden, eine unvollstaendige Klausel am
+  // Ende der Datei wird trotzdem uebernommen. Stuecke nach dem Ende der
+  // Eingabe werden wie beim sequentiellen Lesen ignoriert, auch wenn sie
+  // Fehler enthalten.
+  private static ClauseBlock merge(List<DimacsReader> readers, boolean validate)
+          throws IOException {
+    DimacsReader first = readers.get(0);
+    first.finish();
+    ClauseBlock result = first.clauses;
+    int[] pending = first.clause;
+    int pendingLength = first.length;
+    int headerVars = first.headerVars;
+    int headerClauses = first.headerClauses;
+    boolean end = first.end;
+    for (int k = 1; k < readers.size() && !end; k++) {
+      DimacsReader r = readers.get(k);
+      r.finish();
+      if (r.clauses.size() > 0) {
+        int from = 0;
+        if (pendingLength > 0) {
+          int[] c = r.clauses.clause(0);
+          int[] joined = Arrays.copyOf(pending, pendingLength + c.length);
+          System.arraycopy(c, 0, joined, pendingLength, c.length);
+          result.add(joined, 0, joined.length);
+          from = 1;
+        }
+        result.addAll(r.clauses, from);
+        pending = r.clause;
+        pendingLength = r.length;
+      } else if (r.length > 0) {
+        pending = Arrays.copyOf(pending, pendingLength + r.length);
+        System.arraycopy(r.clause, 0, pending, pendingLength, r.length);
+        pendingLength += r.length;
+      }
+      if (headerVars < 0) {
+        headerVars = r.headerVars;
+        headerClauses = r.headerClauses;
+      }
+      end = r.end;
+    }
+    if (pendingLength > 0) {
+      result.add(pending, 0, pendingLength);
+    }
+    if (validate) {
+      if (headerVars < 0) {
+        throw new IOException("Kopfzeile fehlt!");
+      }
+      if (result.size() != headerClauses) {
+        throw new IOException("Kopfzeile nennt " + headerClauses
+                + " Klauseln, gelesen wurden " + result.size() + "!");
+      }
+      if (result.maxVar() > headerVars) {
+        throw new IOException("Kopfzeile nennt " + headerVars
+                + " Variablen, vorhanden ist Variable " + result.maxVar() + "!");
+      }
+    }
+    return result;
+  }
+
+  // Verarbeitet alle verbleibenden Bytes von buf
+  void parse(ByteBuffer buf) throws IOException {
+    int limit = buf.limit();
+    for (int i = buf.position(); i < limit && !end; i++, position++) {
+      byte b = buf.get(i);
+      if (inComment) {
+        if (b == '\n') {
+          inComment = false;
+          lineStart = true;
+        }
+      } else if (header != null) {
+        if (b == '\n') {
+          parseHeader();
+          lineStart = true;
+        } else {
+          header.append((char) b);
+        }
+      } else if (b >= '0' && b <= '9') {
+        int d = b - '0';
+        if (value > (Integer.MAX_VALUE - d) / 10) {
+          throw error("Zahl zu gross");
+        }
+        value = 10 * value + d;
+        inNumber = true;
+        lineStart = false;
+      } else if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+        endNumber();
+        if (b == '\n') {
+          lineStart = true;
+        }
+      } else if (b == '-' && !inNumber && !negative) {
+        negative = true;
+        lineStart = false;
+      } else if (lineStart && b == 'c') {
+        inComment = true;
+      } else if (lineStart && b == 'p') {
+        header = new StringBuilder("p");
+      } else if (lineStart && b == '%') {
+        end = true;
+      } else {
+        throw error("Unerwartetes Zeichen '" + (char) b + "'");
+      }
+    }
+    buf.position(limit);
+  }
+
+  // Schliesst das gelesene Stueck ab: ein Fehler beim Lesen wird jetzt
+  // gemeldet, eine Zahl oder Kopfzeile an seinem Ende wird noch
+  // verarbeitet, eine unvollstaendige Klausel bleibt stehen
+  void finish() throws IOException {
+    if (failure != null) {
+      throw failure;
+    }
+    if (header != null) {
+      parseHeader();
+    }
+    endNumber();
+  }
+
+  private void endNumber() throws IOException {
+    if (!inNumber) {
+      if (negative) {
+        throw error("Zahl erwartet");
+      }
+      return;
+    }
+    if (value == 0) {
+      clauses.add(clause, 0, length);
+      length = 0;
+    } else {
+      if (length == clause.length) {
+        clause = Arrays.copyOf(clause, 2 * length);
+      }
+      clause[length++] = negative ? -value : value;
+    }
+    inNumber = false;
+    negative = false;
+    value = 0;
+  }
+
+  private void parseHeader() throws IOException {
+    String[] parts = header.toString().trim().split("\\s+");
+    header = null;
+    if (parts.length != 4 || !parts[0].equals("p") || !parts[1].equals("cnf")) {
+      throw error("Ungueltige Kopfzeile");
+    }
+    try {
+      headerVars = Integer.parseInt(parts[2]);
+      headerClauses = Integer.parseInt(parts[3]);
+    } catch (NumberFormatException ex) {
+      throw error("Ungueltige Kopfzeile");
+    }
+  }
+
+  private IOException error(String message) {
+    return new IOException(message + " bei Byte " + position + "!");
+  }
+}
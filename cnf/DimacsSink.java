@@ -0,0 +1,113 @@
+package cnf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Klauselempfaenger, der die Klauseln im DIMACS-Format in eine Datei
+ * schreibt.
+ * <p>
+ * Die Klauseln werden ueber einen Puffer direkt in die Datei geschrieben
+ * und nicht im Speicher gehalten. Da die Anzahl der Variablen und
+ * Klauseln erst am Ende bekannt ist, wird zunaechst eine Kopfzeile
+ * fester Breite reserviert und beim Schliessen ueberschrieben.
+ * Schreibfehler werden als {@code UncheckedIOException} gemeldet.
+ */
+public final class DimacsSink implements ClauseSink, Closeable {
+
+  // "p cnf " und zwei Zahlen zu je 10 Stellen, durch Leerzeichen getrennt
+  private static final int HEADER_WIDTH = 6 + 10 + 1 + 10 + 1;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final byte[] digits;
+  private long clauses;
+  private int maxVar;
+
+  /**
+   * Oeffnet die Datei {@code path} zum Schreiben; eine vorhandene Datei
+   * wird ueberschrieben.
+   */
+  public DimacsSink(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    buffer = ByteBuffer.allocateDirect(1 << 16);
+    digits = new byte[11];
+    clauses = 0;
+    maxVar = 0;
+    buffer.put(header());
+  }
+
+  public void clause(int[] lits, int from, int to) {
+    try {
+      for (int i = from; i < to; i++) {
+        int y = lits[i];
+        maxVar = Math.max(maxVar, Math.abs(y));
+        putInt(y);
+        put((byte) ' ');
+      }
+      put((byte) '0');
+      put((byte) '\n');
+      clauses++;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Schreibt die restlichen Klauseln und die endgueltige Kopfzeile und
+   * schliesst die Datei.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+      channel.write(ByteBuffer.wrap(header()), 0);
+    } finally {
+      channel.close();
+    }
+  }
+
+  private byte[] header() {
+    String s = String.format("p cnf %10d %10d\n", maxVar, clauses);
+    byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+    assert b.length == HEADER_WIDTH;
+    return b;
+  }
+
+  private void putInt(int y) throws IOException {
+    if (y < 0) {
+      put((byte) '-');
+      y = -y;
+    }
+    int n = 0;
+    do {
+      digits[n++] = (byte) ('0' + y % 10);
+      y /= 10;
+    } while (y != 0);
+    while (n > 0) {
+      put(digits[--n]);
+    }
+  }
+
+  private void put(byte b) throws IOException {
+    if (!buffer.hasRemaining()) {
+      flush();
+    }
+    buffer.put(b);
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,24 @@
+package cnf;
+
+/**
+ * Verfahren zur Umwandlung einer Formel in eine
+ * erfuellbarkeitsaequivalente Formel in CNF.
+ */
+public enum Encoding {
+
+  /**
+   * Klassische Tseitin-Kodierung: fuer jede Teilformel werden beide
+   * Richtungen der Aequivalenz zwischen Hilfsvariable und Teilformel
+   * als Klauseln erzeugt.
+   */
+  TSEITIN,
+
+  /**
+   * Polaritaetsabhaengige Kodierung nach Plaisted und Greenbaum: fuer
+   * jede Teilformel wird nur die Richtung der Aequivalenz erzeugt, die
+   * fuer die Polaritaet(en) benoetigt wird, in der die Teilformel
+   * vorkommt. Negationen erhalten keine eigene Hilfsvariable.
+   * Meist entstehen dadurch deutlich weniger Klauseln.
+   */
+  PLAISTED_GREENBAUM
+}
@@ -0,0 +1,188 @@
+package cnf;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Auswertung von Formeln unter einer festen Belegung, ohne SAT-Solver.
+ * <p>
+ * Eine Belegung ist ein {@code BitSet}: die Variable mit
+ * {@code getNumber() == n} ist genau dann wahr, wenn Bit {@code n}
+ * gesetzt ist. Konjunktionen und Disjunktionen werden abgebrochen, sobald
+ * ihr Wert feststeht, und gemeinsame Teilformeln werden innerhalb einer
+ * Auswertung nur einmal ausgewertet.
+ * <p>
+ * Ein Auswerter haelt seinen Stapel und seine Zwischenergebnisse in
+ * Feldern, die ueber alle Auswertungen hinweg wiederverwendet werden;
+ * nach der ersten Auswertung einer Formel entstehen daher keine neuen
+ * Objekte mehr. Am Ende jeder Auswertung werden die Verweise auf die
+ * ausgewerteten Knoten wieder entfernt, so dass ein Auswerter keine
+ * Formeln am Leben haelt. Ein Auswerter darf nur von einem Thread zugleich benutzt
+ * werden; {@code CNF.evaluate} benutzt einen Auswerter je Thread.
+ */
+public final class Evaluator {
+
+  // Stapel der Knoten in Auswertung und jeweils das naechste Kind
+  private Formula[] stackFms;
+  private int[] stackNext;
+  private int stackSize;
+
+  // Zwischenergebnisse der laufenden Auswertung (offene Adressierung);
+  // ein Eintrag gilt nur, wenn sein Stempel der aktuellen Auswertung
+  // entspricht, so dass die Tabelle nie geleert werden muss
+  private Formula[] keys;
+  private int[] stamps;
+  private boolean[] values;
+  private int count;
+  // Plaetze der Eintraege der laufenden Auswertung, die am Ende geleert
+  // werden
+  private int[] written;
+  private int epoch;
+
+  /**
+   * Erzeugt einen neuen Auswerter.
+   */
+  public Evaluator() {
+    stackFms = new Formula[64];
+    stackNext = new int[64];
+    keys = new Formula[256];
+    stamps = new int[256];
+    values = new boolean[256];
+    written = new int[128];
+    epoch = 0;
+  }
+
+  /**
+   * Gibt den Wert von {@code f} unter der Belegung {@code assignment}
+   * zurueck.
+   */
+  public boolean evaluate(Formula f, BitSet assignment) {
+    if (++epoch == 0) {
+      Arrays.fill(stamps, 0);
+      epoch = 1;
+    }
+    count = 0;
+    stackSize = 0;
+    try {
+      return run(f, assignment);
+    } finally {
+      for (int i = 0; i < count; i++) {
+        keys[written[i]] = null;
+      }
+      count = 0;
+      while (stackSize > 0) {
+        pop();
+      }
+    }
+  }
+
+  private boolean run(Formula f, BitSet assignment) {
+    boolean value = false;
+    push(f);
+    while (stackSize > 0) {
+      int top = stackSize - 1;
+      Formula g = stackFms[top];
+      int next = stackNext[top];
+      if (g instanceof FormulaVar) {
+        value = assignment.get(((FormulaVar) g).name.number);
+        pop();
+        continue;
+      }
+      if (next == 0) {
+        int slot = lookup(g);
+        if (stamps[slot] == epoch) {
+          value = values[slot];
+          pop();
+          continue;
+        }
+      }
+      if (g instanceof FormulaNeg) {
+        if (next == 0) {
+          stackNext[top] = 1;
+          push(((FormulaNeg) g).fm);
+        } else {
+          value = !value;
+          store(g, value);
+          pop();
+        }
+        continue;
+      }
+      boolean and = g instanceof FormulaAnd;
+      Formula[] fms = and ? ((FormulaAnd) g).fms : ((FormulaOr) g).fms;
+      if (next > 0 && value != and) {
+        // ein falsches Kind einer Konjunktion bzw. ein wahres Kind einer
+        // Disjunktion entscheidet den Wert
+        store(g, value);
+        pop();
+      } else if (next == fms.length) {
+        value = and;
+        store(g, value);
+        pop();
+      } else {
+        stackNext[top] = next + 1;
+        push(fms[next]);
+      }
+    }
+    return value;
+  }
+
+  private void push(Formula f) {
+    if (stackSize == stackFms.length) {
+      stackFms = Arrays.copyOf(stackFms, 2 * stackSize);
+      stackNext = Arrays.copyOf(stackNext, 2 * stackSize);
+    }
+    stackFms[stackSize] = f;
+    stackNext[stackSize] = 0;
+    stackSize++;
+  }
+
+  private void pop() {
+    stackSize--;
+    stackFms[stackSize] = null;
+  }
+
+  // Platz von f in der Tabelle: entweder sein aktueller Eintrag oder der
+  // erste freie bzw. veraltete Platz
+  private int lookup(Formula f) {
+    int mask = keys.length - 1;
+    int h = f.hash * 0x9E3779B9;
+    int slot = (h ^ (h >>> 16)) & mask;
+    while (stamps[slot] == epoch && keys[slot] != f) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void store(Formula f, boolean value) {
+    if (2 * (count + 1) > keys.length) {
+      grow();
+    }
+    int slot = lookup(f);
+    if (stamps[slot] != epoch) {
+      written[count++] = slot;
+    }
+    keys[slot] = f;
+    stamps[slot] = epoch;
+    values[slot] = value;
+  }
+
+  private void grow() {
+    Formula[] oldKeys = keys;
+    int[] oldStamps = stamps;
+    boolean[] oldValues = values;
+    keys = new Formula[2 * oldKeys.length];
+    stamps = new int[2 * oldKeys.length];
+    values = new boolean[2 * oldKeys.length];
+    written = new int[oldKeys.length];
+    int n = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldStamps[i] == epoch) {
+        int slot = lookup(oldKeys[i]);
+        written[n++] = slot;
+        keys[slot] = oldKeys[i];
+        stamps[slot] = epoch;
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package cnf;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * Repraesentation aussagenlogischer Formeln.
  * <p>
@@ -7,17 +10,61 @@ package cnf;
  * kein oeffentliches Interface bereit.
  * Formeln koennen mit den Methoden der Klasse {@code CNF}
  * konstruiert werden.
+ * <p>
+ * Formeln sind unveraenderlich und werden beim Konstruieren in einer
+ * globalen Tabelle eindeutig gemacht: strukturell gleiche Formeln sind
+ * dasselbe Objekt. Gleichheit ist daher Objektidentitaet, und der
+ * Hashwert wird nur einmal beim Erzeugen berechnet.
  */
 
 public abstract class Formula {
 
+  // Hashwert der Struktur, aus den Hashwerten der Kinder berechnet
+  final int hash;
+
   // package-private
-  Formula() {}
+  Formula(int hash) {
+    this.hash = hash;
+  }
 
   abstract <A> A accept(FormulaVisitor<A> visitor);
 
+  // Strukturvergleich fuer die Eindeutigkeitstabelle; die Kinder sind
+  // bereits eindeutig und werden daher mit == verglichen.
+  abstract boolean sameNode(Formula other);
+
+  // Schreibt den Anfang dieses Knotens nach s und legt den Rest (Kinder
+  // und Trennzeichen) in umgekehrter Reihenfolge auf den Stapel.
+  abstract void print(StringBuilder s, Deque<Object> stack);
+
   /**
    * Wandelt die repraesentierte Formel in einen String um.
    */
-  abstract public String toString();
+  @Override
+  public String toString() {
+    // iterativ, damit auch sehr tief geschachtelte Formeln ausgegeben
+    // werden koennen
+    StringBuilder s = new StringBuilder();
+    Deque<Object> stack = new ArrayDeque<Object>();
+    stack.push(this);
+    while (!stack.isEmpty()) {
+      Object o = stack.pop();
+      if (o instanceof Formula) {
+        ((Formula) o).print(s, stack);
+      } else {
+        s.append((String) o);
+      }
+    }
+    return s.toString();
+  }
+
+  @Override
+  public final boolean equals(Object obj) {
+    return this == obj;
+  }
+
+  @Override
+  public final int hashCode() {
+    return hash;
+  }
 }
@@ -1,12 +1,13 @@
 package cnf;
 
-import java.util.List;
+import java.util.Deque;
 
 final class FormulaAnd extends Formula {
 
-  final List<Formula> fms;
+  final Formula[] fms;
 
-  public FormulaAnd(List<Formula> fms) {
+  FormulaAnd(Formula[] fms) {
+    super(73 * 3 + childrenHash(fms));
     this.fms = fms;
   }
 
@@ -15,40 +16,44 @@ final class FormulaAnd extends Formula {
   }
 
   @Override
-  public String toString() {
-    StringBuffer s = new StringBuffer();
+  void print(StringBuilder s, Deque<Object> stack) {
+    if (fms.length == 0) {
+      // leere Konjunktion ist die Konstante TRUE
+      s.append("TRUE");
+      return;
+    }
     s.append("and(");
-    String sep = "";
-    for(Formula f : fms) {
-      s.append(sep);
-      s.append(f.toString());
-      sep = ", ";
+    stack.push(")");
+    for (int i = fms.length - 1; i >= 0; i--) {
+      stack.push(fms[i]);
+      if (i > 0) {
+        stack.push(", ");
+      }
     }
-    s.append(")");
-    return s.toString();
   }
 
-
   @Override
-  public boolean equals(Object obj) {
-    if (obj == null) {
-      return false;
+  boolean sameNode(Formula other) {
+    return other instanceof FormulaAnd && sameChildren(fms, ((FormulaAnd) other).fms);
+  }
+
+  static int childrenHash(Formula[] fms) {
+    int hash = 1;
+    for (Formula f : fms) {
+      hash = 31 * hash + f.hash;
     }
-    if (getClass() != obj.getClass()) {
+    return hash;
+  }
+
+  static boolean sameChildren(Formula[] fms1, Formula[] fms2) {
+    if (fms1.length != fms2.length) {
       return false;
     }
-    final FormulaAnd other = (FormulaAnd) obj;
-    if (this.fms != other.fms && (this.fms == null || !this.fms.equals(other.fms))) {
-      return false;
+    for (int i = 0; i < fms1.length; i++) {
+      if (fms1[i] != fms2[i]) {
+        return false;
+      }
     }
     return true;
   }
-
-  @Override
-  public int hashCode() {
-    int hash = 3;
-    hash = 73 * hash + (this.fms != null ? this.fms.hashCode() : 0);
-    return hash;
-  }
 }
-
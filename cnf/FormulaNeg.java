@@ -1,10 +1,13 @@
 package cnf;
 
+import java.util.Deque;
+
 final class FormulaNeg extends Formula {
 
   final Formula fm;
 
-  public FormulaNeg(Formula fm) {
+  FormulaNeg(Formula fm) {
+    super(37 * 5 + fm.hash);
     this.fm = fm;
   }
 
@@ -13,31 +16,15 @@ final class FormulaNeg extends Formula {
   }
 
   @Override
-  public String toString() {
-    return "neg(" + fm + ")";
+  void print(StringBuilder s, Deque<Object> stack) {
+    s.append("neg(");
+    stack.push(")");
+    stack.push(fm);
   }
 
   @Override
-  public boolean equals(Object obj) {
-    if (obj == null) {
-      return false;
-    }
-    if (getClass() != obj.getClass()) {
-      return false;
-    }
-    final FormulaNeg other = (FormulaNeg) obj;
-    if (this.fm != other.fm && (this.fm == null || !this.fm.equals(other.fm))) {
-      return false;
-    }
-    return true;
-  }
-
-  @Override
-  public int hashCode() {
-    int hash = 5;
-    hash = 37 * hash + (this.fm != null ? this.fm.hashCode() : 0);
-    return hash;
+  boolean sameNode(Formula other) {
+    return other instanceof FormulaNeg && ((FormulaNeg) other).fm == fm;
   }
 }
 
-
@@ -0,0 +1,138 @@
+package cnf;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Tabelle aller lebenden Formelknoten (hash consing).
+ * <p>
+ * Zu jeder Struktur gibt es hoechstens einen Knoten: strukturell gleiche
+ * Formeln sind daher identisch und koennen mit {@code ==} verglichen
+ * werden. Die Eintraege sind schwache Referenzen, so dass nicht mehr
+ * benutzte Formeln vom Garbage Collector entfernt werden koennen.
+ * <p>
+ * Die Tabelle ist in Abschnitte mit je eigener Sperre geteilt; der
+ * Hashwert eines Knotens bestimmt seinen Abschnitt. Threads, die
+ * gleichzeitig Formeln erzeugen, etwa in verschiedenen Kontexten,
+ * warten daher nur aufeinander, wenn ihre Knoten zufaellig in denselben
+ * Abschnitt fallen.
+ * <p>
+ * Die Tabelle ist fuer alle Kontexte gemeinsam. Variablenknoten werden
+ * nur ueber die Nummer ihrer Variable unterschieden: {@code var(x)} fuer
+ * zwei Variablen verschiedener Kontexte mit derselben Nummer ergibt
+ * denselben Knoten. Das ist unschaedlich, weil die Kodierung nur die
+ * Nummer benutzt und eine Formel stets in dem Kontext geprueft wird,
+ * aus dem ihre Variablen stammen.
+ */
+final class FormulaTable {
+
+  // Anzahl der Abschnitte, eine Zweierpotenz
+  private static final int SEGMENTS = 64;
+  private static final int SEGMENT_SHIFT = 32 - Integer.numberOfTrailingZeros(SEGMENTS);
+
+  private static final class Entry extends WeakReference<Formula> {
+
+    final int hash;
+    Entry next;
+
+    Entry(Formula fm, ReferenceQueue<Formula> queue, Entry next) {
+      super(fm, queue);
+      this.hash = fm.hash;
+      this.next = next;
+    }
+  }
+
+  // Ein Abschnitt: eine eigene Hashtabelle mit eigener Sperre und eigener
+  // Warteschlange fuer entfernte Knoten
+  private static final class Segment {
+
+    private final ReferenceQueue<Formula> queue;
+    private Entry[] table;
+    private int count;
+
+    Segment() {
+      queue = new ReferenceQueue<Formula>();
+      table = new Entry[64];
+      count = 0;
+    }
+
+    synchronized Formula intern(Formula fm) {
+      expunge();
+      int i = index(fm.hash);
+      for (Entry e = table[i]; e != null; e = e.next) {
+        if (e.hash == fm.hash) {
+          Formula other = e.get();
+          if (other != null && other.sameNode(fm)) {
+            return other;
+          }
+        }
+      }
+      table[i] = new Entry(fm, queue, table[i]);
+      count++;
+      if (count > table.length - (table.length >> 2)) {
+        resize();
+      }
+      return fm;
+    }
+
+    // Entfernt die Eintraege von Knoten, die nicht mehr erreichbar sind.
+    private void expunge() {
+      Object ref;
+      while ((ref = queue.poll()) != null) {
+        Entry dead = (Entry) ref;
+        int i = index(dead.hash);
+        Entry prev = null;
+        for (Entry e = table[i]; e != null; prev = e, e = e.next) {
+          if (e == dead) {
+            if (prev == null) {
+              table[i] = e.next;
+            } else {
+              prev.next = e.next;
+            }
+            count--;
+            break;
+          }
+        }
+      }
+    }
+
+    private int index(int hash) {
+      return (hash ^ (hash >>> 16)) & (table.length - 1);
+    }
+
+    private void resize() {
+      Entry[] old = table;
+      table = new Entry[2 * old.length];
+      for (Entry head : old) {
+        Entry e = head;
+        while (e != null) {
+          Entry next = e.next;
+          int i = index(e.hash);
+          e.next = table[i];
+          table[i] = e;
+          e = next;
+        }
+      }
+    }
+  }
+
+  private final Segment[] segments;
+
+  FormulaTable() {
+    segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment();
+    }
+  }
+
+  /**
+   * Gibt den bereits vorhandenen Knoten mit derselben Struktur wie
+   * {@code fm} zurueck; gibt es keinen, so wird {@code fm} eingetragen
+   * und zurueckgegeben.
+   */
+  Formula intern(Formula fm) {
+    // die oberen Bits des gestreuten Hashwerts waehlen den Abschnitt, die
+    // unteren den Platz darin
+    return segments[(fm.hash * 0x9E3779B9) >>> SEGMENT_SHIFT].intern(fm);
+  }
+}
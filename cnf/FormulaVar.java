@@ -1,10 +1,13 @@
 package cnf;
 
+import java.util.Deque;
+
 final class FormulaVar extends Formula {
 
   final VarName name;
 
-  public FormulaVar(VarName name) {
+  FormulaVar(VarName name) {
+    super(41 * 3 + name.hashCode());
     this.name = name;
   }
 
@@ -13,29 +16,13 @@ final class FormulaVar extends Formula {
   }
 
   @Override
-  public String toString() {
-    return name.toString();
-  }
-
-  @Override
-  public boolean equals(Object obj) {
-    if (obj == null) {
-      return false;
-    }
-    if (getClass() != obj.getClass()) {
-      return false;
-    }
-    final FormulaVar other = (FormulaVar) obj;
-    if (this.name != other.name && (this.name == null || !this.name.equals(other.name))) {
-      return false;
-    }
-    return true;
+  void print(StringBuilder s, Deque<Object> stack) {
+    s.append(name.toString());
   }
 
   @Override
-  public int hashCode() {
-    int hash = 3;
-    hash = 41 * hash + (this.name != null ? this.name.hashCode() : 0);
-    return hash;
+  boolean sameNode(Formula other) {
+    return other instanceof FormulaVar
+            && ((FormulaVar) other).name.number == name.number;
   }
 }
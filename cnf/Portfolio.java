@@ -0,0 +1,223 @@
+package cnf;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Portfolio verschieden konfigurierter SAT-Solver.
+ * <p>
+ * Jede Anfrage wird einmal kodiert und dann von allen Solvern des
+ * Portfolios gleichzeitig in eigenen Threads bearbeitet. Die erste
+ * eindeutige Antwort (erfuellbar oder unerfuellbar) gilt; die uebrigen
+ * Solver werden abgebrochen. Fuer jede Konfiguration wird gezaehlt, wie
+ * oft sie gewonnen hat, so dass schwache Konfigurationen erkannt und
+ * weggelassen werden koennen.
+ * <p>
+ * Konfigurationen werden mit den Namen der Fabrikmethoden von SAT4J
+ * ohne das Praefix {@code new} angegeben, etwa {@code "Default"},
+ * {@code "Glucose"} oder {@code "MiniSATHeap"}.
+ * <p>
+ * Portfolios werden mit {@code CNF.portfolio()} oder
+ * {@code CnfContext.portfolio()} erzeugt. Ein Portfolio haelt eigene
+ * Threads; sie werden mit {@code shutdown()} beendet.
+ */
+public final class Portfolio {
+
+  // Standardkonfigurationen; sie unterscheiden sich in Restarts,
+  // Klauselverwaltung und Vereinfachung gelernter Klauseln
+  static final String[] DEFAULT_CONFIGURATIONS = {
+    "Default", "Glucose", "MiniSATHeap", "MiniLearningHeapRsatExpSimpBiere"
+  };
+
+  private final CnfContext context;
+  private final String[] names;
+  private final AtomicLongArray wins;
+  private final ExecutorService executor;
+
+  Portfolio(CnfContext context, String[] names) {
+    if (names.length == 0) {
+      throw new IllegalArgumentException("Portfolio ohne Solver!");
+    }
+    List<String> known = Arrays.asList(SolverFactory.instance().solverNames());
+    for (String name : names) {
+      if (!known.contains(name)) {
+        throw new IllegalArgumentException("Unbekannte Solverkonfiguration: " + name);
+      }
+    }
+    this.context = context;
+    this.names = names.clone();
+    this.wins = new AtomicLongArray(names.length);
+    this.executor = Executors.newFixedThreadPool(names.length, r -> {
+      Thread t = new Thread(r, "cnf-portfolio");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Prueft die Konjunktion von {@code f} und {@code clauses} (beide
+   * duerfen {@code null} sein) mit allen Solvern zugleich.
+   *
+   * @param budget Grenzen fuer jeden einzelnen Solver; mit
+   *               {@code budget.cancel()} wird die ganze Anfrage beendet
+   * @return {@code SAT} oder {@code UNSAT} nach der ersten eindeutigen
+   *         Antwort; {@code UNKNOWN}, wenn kein Solver innerhalb des
+   *         Budgets zu einem Ergebnis kam
+   */
+  public SatResult check(Formula f, ClauseBlock clauses, Budget budget) {
+    return race(f, clauses, budget).result;
+  }
+
+  /**
+   * Wie {@code CNF.satisfiable(f)}, mit allen Solvern zugleich.
+   *
+   * @throws TimeoutException wenn kein Solver zu einem Ergebnis kam
+   */
+  public Set<VarName> satisfiable(Formula f) throws TimeoutException {
+    Race race = race(f, null, null);
+    if (race.result == SatResult.UNKNOWN) {
+      throw new TimeoutException("Kein Solver des Portfolios kam zu einem Ergebnis!");
+    }
+    return race.result == SatResult.SAT ? CnfContext.trueVars(race.solver.model()) : null;
+  }
+
+  /**
+   * Wie {@code CNF.model(f, clauses, vars)}, mit allen Solvern zugleich.
+   *
+   * @throws TimeoutException wenn kein Solver zu einem Ergebnis kam
+   */
+  public BitSet model(Formula f, ClauseBlock clauses, VarName[] vars)
+          throws TimeoutException {
+    Race race = race(f, clauses, null);
+    if (race.result == SatResult.UNKNOWN) {
+      throw new TimeoutException("Kein Solver des Portfolios kam zu einem Ergebnis!");
+    }
+    if (race.result == SatResult.UNSAT) {
+      return null;
+    }
+    return CnfContext.project(race.solver, vars, new BitSet(vars.length));
+  }
+
+  /**
+   * Gibt fuer jede Konfiguration zurueck, wie viele Anfragen sie als
+   * erste entschieden hat, in der Reihenfolge des Portfolios.
+   */
+  public Map<String, Long> getWins() {
+    Map<String, Long> result = new LinkedHashMap<String, Long>();
+    for (int i = 0; i < names.length; i++) {
+      result.put(names[i], wins.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Setzt die Gewinnstatistik zurueck.
+   */
+  public void resetStatistics() {
+    for (int i = 0; i < names.length; i++) {
+      wins.set(i, 0);
+    }
+  }
+
+  /**
+   * Beendet die Threads des Portfolios. Danach duerfen keine Anfragen
+   * mehr gestellt werden.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  // Ergebnis eines Wettlaufs: Antwort und ggf. der Solver, der sie fand
+  private static final class Race {
+
+    final SatResult result;
+    final ISolver solver;
+
+    Race(SatResult result, ISolver solver) {
+      this.result = result;
+      this.solver = solver;
+    }
+  }
+
+  private Race race(Formula f, ClauseBlock clauses, Budget budget) {
+    // einmal kodieren; alle Solver lesen denselben Klauselblock
+    final ClauseBlock encoded = new ClauseBlock();
+    if (f != null) {
+      context.encode(f, Encoding.TSEITIN, encoded);
+    }
+    final ClauseBlock given = clauses;
+    if (given != null) {
+      context.pool.reserve(given.maxVar());
+    }
+    final int maxVar = context.pool.maxVar();
+    final Budget race = new Budget(budget);
+    final ISolver[] solvers = new ISolver[names.length];
+    final SatResult[] results = new SatResult[names.length];
+
+    CompletionService<Integer> done = new ExecutorCompletionService<Integer>(executor);
+    for (int i = 0; i < names.length; i++) {
+      final int k = i;
+      done.submit(() -> {
+        results[k] = run(names[k], encoded, given, maxVar, race, solvers, k);
+        return k;
+      });
+    }
+
+    try {
+      for (int i = 0; i < names.length; i++) {
+        int k;
+        try {
+          k = done.take().get();
+        } catch (ExecutionException ex) {
+          continue; // dieser Solver ist gescheitert; die anderen zaehlen
+        }
+        if (results[k] != SatResult.UNKNOWN) {
+          race.cancel();
+          wins.incrementAndGet(k);
+          return new Race(results[k], solvers[k]);
+        }
+      }
+    } catch (InterruptedException ex) {
+      race.cancel();
+      Thread.currentThread().interrupt();
+    }
+    return new Race(SatResult.UNKNOWN, null);
+  }
+
+  private static SatResult run(String name, ClauseBlock encoded, ClauseBlock given,
+          int maxVar, Budget race, ISolver[] solvers, int k) {
+    ISolver solver = SolverFactory.instance().createSolverByName(name);
+    solvers[k] = solver;
+    SolverSink sink = new SolverSink(solver);
+    encoded.writeTo(sink);
+    if (given != null) {
+      given.writeTo(sink);
+    }
+    sink.declare(maxVar);
+    if (sink.isContradiction()) {
+      return SatResult.UNSAT;
+    }
+    if (race.isCancelled()) {
+      return SatResult.UNKNOWN;
+    }
+    solver.setSearchListener(Budget.listener(solver, race));
+    try {
+      return solver.isSatisfiable() ? SatResult.SAT : SatResult.UNSAT;
+    } catch (TimeoutException ex) {
+      return SatResult.UNKNOWN;
+    }
+  }
+}
@@ -0,0 +1,637 @@
+package cnf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Vereinfachung einer Klauselmenge, bevor sie an den SAT-Solver geht.
+ * <p>
+ * Der Vorverarbeiter sammelt als {@code ClauseSink} Klauseln und
+ * vereinfacht sie dann in mehreren Schritten:
+ * <ul>
+ * <li>Einheitspropagation: Variablen aus Einerklauseln werden festgelegt,
+ *     erfuellte Klauseln und falsche Literale entfernt;</li>
+ * <li>Tautologien, doppelte und subsumierte Klauseln werden entfernt,
+ *     und Klauseln werden durch selbstsubsumierende Resolution
+ *     verkuerzt;</li>
+ * <li>beschraenkte Variablenelimination: eine nicht eingefrorene
+ *     Variable wird durch Resolution entfernt, wenn dadurch die Zahl der
+ *     Klauseln nicht steigt.</li>
+ * </ul>
+ * Die Ergebnisklauseln sind genau dann erfuellbar, wenn die
+ * urspruenglichen Klauseln es sind. Eine Belegung der Ergebnisklauseln
+ * wird mit {@code extend} zu einer Belegung aller urspruenglichen
+ * Variablen ergaenzt; dazu merkt sich der Vorverarbeiter die entfernten
+ * Klauseln auf einem Stapel.
+ * <p>
+ * Eingefrorene Variablen werden nie eliminiert. Das sind alle Variablen
+ * bis einschliesslich der im Konstruktor angegebenen Nummer und die mit
+ * {@code freeze} angegebenen; typischerweise die Variablen der Eingabe,
+ * waehrend Hilfsvariablen der Tseitin-Kodierung eliminiert werden
+ * duerfen.
+ * <p>
+ * Die Methoden {@code getClausesBefore()} usw. geben an, wie stark die
+ * Klauselmenge verkleinert wurde.
+ */
+public final class Preprocessor implements ClauseSink {
+
+  // Variablen mit mehr Vorkommen werden nicht eliminiert
+  private static final int OCCURRENCE_LIMIT = 24;
+
+  // Resolventen mit mehr Literalen verhindern eine Elimination
+  private static final int RESOLVENT_LIMIT = 24;
+
+  // Hoechstzahl der Runden aus Subsumption und Elimination
+  private static final int MAX_ROUNDS = 4;
+
+  private static final int[] EMPTY = new int[0];
+
+  private final int frozen;
+  private final BitSet frozenVars;
+  private boolean processed;
+  private boolean contradiction;
+
+  // Klauseln, sortiert und ohne doppelte Literale; entfernte sind null
+  private final List<int[]> clauses;
+  private int maxVar;
+
+  // Vorkommen je Literal (Index 2v bzw. 2v+1 fuer v bzw. -v); Eintraege
+  // entfernter oder verkuerzter Klauseln bleiben stehen und werden beim
+  // Durchlaufen uebersprungen
+  private int[][] occ;
+  private int[] occSize;
+  // 1 wahr, -1 falsch, 0 frei
+  private byte[] value;
+  private boolean[] eliminated;
+  // Markierungen fuer Teilmengentests und Resolution
+  private int[] marks;
+  private int stamp;
+
+  // festzulegende Literale und zu pruefende Klauseln
+  private int[] units;
+  private int unitCount;
+  private int[] touched;
+  private int touchedCount;
+
+  // Rekonstruktionsstapel: je Eintrag die Literale einer entfernten
+  // Klausel, beginnend mit ihrem Zeugen, gefolgt von ihrer Laenge
+  private int[] stack;
+  private int stackSize;
+
+  private int clausesBefore;
+  private int fixed;
+  private int tautologies;
+  private int duplicates;
+  private int subsumed;
+  private int strengthened;
+  private int eliminatedVars;
+  private long timeNs;
+
+  /**
+   * Erzeugt einen leeren Vorverarbeiter.
+   *
+   * @param frozen die Variablen {@code 1} bis {@code frozen} werden nie
+   *               eliminiert
+   */
+  public Preprocessor(int frozen) {
+    this.frozen = frozen;
+    this.frozenVars = new BitSet();
+    this.clauses = new ArrayList<int[]>();
+    this.stack = new int[64];
+  }
+
+  /**
+   * Verhindert, dass die Variable {@code var} eliminiert wird.
+   */
+  public void freeze(int var) {
+    frozenVars.set(var);
+  }
+
+  public void clause(int[] lits, int from, int to) {
+    if (processed) {
+      throw new IllegalStateException("Vorverarbeitung ist bereits abgeschlossen!");
+    }
+    int[] c = normalize(Arrays.copyOfRange(lits, from, to));
+    clausesBefore++;
+    if (c == null) {
+      tautologies++;
+      return;
+    }
+    for (int y : c) {
+      if (y == 0) {
+        throw new IllegalArgumentException("Literal darf nicht 0 sein!");
+      }
+      maxVar = Math.max(maxVar, Math.abs(y));
+    }
+    clauses.add(c);
+  }
+
+  /**
+   * Vereinfacht die gesammelten Klauseln. Danach werden keine weiteren
+   * Klauseln angenommen. Wiederholte Aufrufe haben keine Wirkung.
+   */
+  public void process() {
+    if (processed) {
+      return;
+    }
+    processed = true;
+    long start = System.nanoTime();
+    init();
+    for (int round = 0; round < MAX_ROUNDS && !contradiction; round++) {
+      if (!propagate() || !subsume()) {
+        break;
+      }
+      if (eliminate() == 0) {
+        break;
+      }
+    }
+    if (!contradiction) {
+      propagate();
+    }
+    timeNs = System.nanoTime() - start;
+  }
+
+  /**
+   * Gibt {@code true} zurueck, wenn die Vorverarbeitung die Klauseln
+   * als unerfuellbar erkannt hat.
+   */
+  public boolean isContradiction() {
+    process();
+    return contradiction;
+  }
+
+  /**
+   * Uebergibt die vereinfachten Klauseln an {@code sink}; bei einem
+   * Widerspruch nur die leere Klausel.
+   */
+  public void writeTo(ClauseSink sink) {
+    process();
+    if (contradiction) {
+      sink.clause(EMPTY, 0, 0);
+      return;
+    }
+    for (int[] c : clauses) {
+      if (c != null) {
+        sink.clause(c, 0, c.length);
+      }
+    }
+  }
+
+  /**
+   * Ergaenzt eine Belegung der vereinfachten Klauseln zu einer Belegung,
+   * die alle urspruenglichen Klauseln erfuellt.
+   *
+   * @param model Belegung im Format von SAT4J: je Variable ihr Literal
+   * @return Belegung aller Variablen {@code 1} bis zur groessten
+   *         bekannten; Position {@code i} enthaelt {@code i + 1} oder
+   *         {@code -(i + 1)}
+   */
+  public int[] extend(int[] model) {
+    int n = maxVar;
+    for (int y : model) {
+      n = Math.max(n, Math.abs(y));
+    }
+    boolean[] val = new boolean[n + 1];
+    for (int y : model) {
+      val[Math.abs(y)] = y > 0;
+    }
+    int k = stackSize;
+    while (k > 0) {
+      int len = stack[k - 1];
+      int from = k - 1 - len;
+      boolean sat = false;
+      for (int i = from; i < k - 1 && !sat; i++) {
+        int y = stack[i];
+        sat = val[Math.abs(y)] == (y > 0);
+      }
+      if (!sat) {
+        int w = stack[from];
+        val[Math.abs(w)] = w > 0;
+      }
+      k = from;
+    }
+    int[] result = new int[n];
+    for (int v = 1; v <= n; v++) {
+      result[v - 1] = val[v] ? v : -v;
+    }
+    return result;
+  }
+
+  /**
+   * Gibt die Zahl der uebergebenen Klauseln zurueck.
+   */
+  public int getClausesBefore() {
+    return clausesBefore;
+  }
+
+  /**
+   * Gibt die Zahl der Klauseln nach der Vorverarbeitung zurueck.
+   */
+  public int getClausesAfter() {
+    process();
+    if (contradiction) {
+      return 1;
+    }
+    int n = 0;
+    for (int[] c : clauses) {
+      if (c != null) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Gibt die Zahl der durch Einheitspropagation festgelegten Variablen
+   * zurueck.
+   */
+  public int getFixedVars() {
+    return fixed;
+  }
+
+  /**
+   * Gibt die Zahl der entfernten Tautologien zurueck.
+   */
+  public int getTautologies() {
+    return tautologies;
+  }
+
+  /**
+   * Gibt die Zahl der entfernten doppelten Klauseln zurueck.
+   */
+  public int getDuplicates() {
+    return duplicates;
+  }
+
+  /**
+   * Gibt die Zahl der entfernten echt subsumierten Klauseln zurueck.
+   */
+  public int getSubsumed() {
+    return subsumed;
+  }
+
+  /**
+   * Gibt die Zahl der Literale zurueck, die durch selbstsubsumierende
+   * Resolution entfernt wurden.
+   */
+  public int getStrengthened() {
+    return strengthened;
+  }
+
+  /**
+   * Gibt die Zahl der eliminierten Variablen zurueck.
+   */
+  public int getEliminatedVars() {
+    return eliminatedVars;
+  }
+
+  /**
+   * Gibt die Dauer der Vorverarbeitung in Millisekunden zurueck.
+   */
+  public long getTimeMs() {
+    return timeNs / 1000000L;
+  }
+
+  @Override
+  public String toString() {
+    return "Klauseln " + clausesBefore + " -> " + getClausesAfter()
+            + ", festgelegt " + fixed + ", Tautologien " + tautologies
+            + ", doppelt " + duplicates + ", subsumiert " + subsumed
+            + ", verkuerzt " + strengthened + ", eliminiert " + eliminatedVars
+            + ", " + getTimeMs() + " ms";
+  }
+
+  // Sortiert die Literale und entfernt Wiederholungen; null bei einer
+  // Tautologie
+  private static int[] normalize(int[] c) {
+    Arrays.sort(c);
+    int k = 0;
+    for (int i = 0; i < c.length; i++) {
+      if (k == 0 || c[i] != c[k - 1]) {
+        c[k++] = c[i];
+      }
+    }
+    for (int i = 0; i < k && c[i] < 0; i++) {
+      if (Arrays.binarySearch(c, 0, k, -c[i]) >= 0) {
+        return null;
+      }
+    }
+    return k == c.length ? c : Arrays.copyOf(c, k);
+  }
+
+  private static int index(int y) {
+    return y > 0 ? 2 * y : 2 * -y + 1;
+  }
+
+  private static boolean contains(int[] c, int y) {
+    return Arrays.binarySearch(c, y) >= 0;
+  }
+
+  private void init() {
+    occ = new int[2 * maxVar + 2][];
+    occSize = new int[2 * maxVar + 2];
+    value = new byte[maxVar + 1];
+    eliminated = new boolean[maxVar + 1];
+    marks = new int[2 * maxVar + 2];
+    units = new int[16];
+    touched = new int[Math.max(16, clauses.size())];
+    for (int i = 0; i < clauses.size(); i++) {
+      int[] c = clauses.get(i);
+      for (int y : c) {
+        addOcc(y, i);
+      }
+      touch(i);
+      if (c.length == 0) {
+        contradiction = true;
+      } else if (c.length == 1) {
+        addUnit(c[0]);
+      }
+    }
+  }
+
+  private void addOcc(int y, int c) {
+    int x = index(y);
+    if (occ[x] == null) {
+      occ[x] = new int[4];
+    } else if (occSize[x] == occ[x].length) {
+      occ[x] = Arrays.copyOf(occ[x], 2 * occSize[x]);
+    }
+    occ[x][occSize[x]++] = c;
+  }
+
+  // Entfernt veraltete Eintraege aus den Vorkommen von y und gibt deren
+  // Anzahl zurueck
+  private int compact(int y) {
+    int x = index(y);
+    int k = 0;
+    for (int i = 0; i < occSize[x]; i++) {
+      int d = occ[x][i];
+      int[] c = clauses.get(d);
+      if (c != null && contains(c, y)) {
+        occ[x][k++] = d;
+      }
+    }
+    occSize[x] = k;
+    return k;
+  }
+
+  private void addUnit(int y) {
+    if (unitCount == units.length) {
+      units = Arrays.copyOf(units, 2 * unitCount);
+    }
+    units[unitCount++] = y;
+  }
+
+  private void touch(int c) {
+    if (touchedCount == touched.length) {
+      touched = Arrays.copyOf(touched, 2 * touchedCount);
+    }
+    touched[touchedCount++] = c;
+  }
+
+  // Legt eine entfernte Klausel mit dem Zeugen w auf den Stapel
+  private void push(int[] c, int w) {
+    if (stackSize + c.length + 1 > stack.length) {
+      stack = Arrays.copyOf(stack, Math.max(2 * stack.length, stackSize + c.length + 1));
+    }
+    stack[stackSize++] = w;
+    for (int y : c) {
+      if (y != w) {
+        stack[stackSize++] = y;
+      }
+    }
+    stack[stackSize++] = c.length;
+  }
+
+  // Haengt eine neue Klausel an; sie darf keine festgelegten Variablen
+  // enthalten
+  private void addClause(int[] c) {
+    int i = clauses.size();
+    clauses.add(c);
+    for (int y : c) {
+      addOcc(y, i);
+    }
+    touch(i);
+    if (c.length == 1) {
+      addUnit(c[0]);
+    }
+  }
+
+  // Entfernt das Literal y aus der Klausel d
+  private void strengthen(int d, int y) {
+    int[] c = clauses.get(d);
+    int[] s = new int[c.length - 1];
+    int k = 0;
+    for (int z : c) {
+      if (z != y) {
+        s[k++] = z;
+      }
+    }
+    clauses.set(d, s);
+    if (s.length == 0) {
+      contradiction = true;
+    } else if (s.length == 1) {
+      addUnit(s[0]);
+    }
+    touch(d);
+  }
+
+  // Einheitspropagation; false bei einem Widerspruch
+  private boolean propagate() {
+    while (unitCount > 0 && !contradiction) {
+      int y = units[--unitCount];
+      int v = Math.abs(y);
+      byte b = (byte) (y > 0 ? 1 : -1);
+      if (value[v] == b) {
+        continue;
+      }
+      if (value[v] != 0) {
+        contradiction = true;
+        break;
+      }
+      value[v] = b;
+      fixed++;
+      push(new int[]{y}, y);
+      int x = index(y);
+      for (int i = 0; i < occSize[x]; i++) {
+        int d = occ[x][i];
+        int[] c = clauses.get(d);
+        if (c != null && contains(c, y)) {
+          clauses.set(d, null);
+        }
+      }
+      occSize[x] = 0;
+      x = index(-y);
+      for (int i = 0; i < occSize[x] && !contradiction; i++) {
+        int d = occ[x][i];
+        int[] c = clauses.get(d);
+        if (c != null && contains(c, -y)) {
+          strengthen(d, -y);
+        }
+      }
+      occSize[x] = 0;
+    }
+    return !contradiction;
+  }
+
+  // Entfernt subsumierte Klauseln und verkuerzt Klauseln durch
+  // selbstsubsumierende Resolution, ausgehend von allen beruehrten
+  // Klauseln; false bei einem Widerspruch
+  private boolean subsume() {
+    while (touchedCount > 0 && !contradiction) {
+      int ci = touched[--touchedCount];
+      int[] c = clauses.get(ci);
+      if (c == null) {
+        continue;
+      }
+      // das Literal mit den wenigsten Vorkommen beider Vorzeichen
+      int p = c[0];
+      int best = Integer.MAX_VALUE;
+      for (int y : c) {
+        int n = occSize[index(y)] + occSize[index(-y)];
+        if (n < best) {
+          best = n;
+          p = y;
+        }
+      }
+      stamp++;
+      for (int y : c) {
+        marks[index(y)] = stamp;
+      }
+      for (int sign = 0; sign < 2 && clauses.get(ci) == c; sign++) {
+        int x = index(sign == 0 ? p : -p);
+        for (int i = 0; i < occSize[x] && clauses.get(ci) == c; i++) {
+          int di = occ[x][i];
+          int[] d = clauses.get(di);
+          if (di == ci || d == null || d.length < c.length) {
+            continue;
+          }
+          int match = 0;
+          int flips = 0;
+          int flip = 0;
+          for (int z : d) {
+            if (marks[index(z)] == stamp) {
+              match++;
+            } else if (marks[index(-z)] == stamp) {
+              flips++;
+              flip = z;
+            }
+          }
+          if (flips == 0 && match == c.length) {
+            if (d.length == c.length) {
+              duplicates++;
+            } else {
+              subsumed++;
+            }
+            clauses.set(di, null);
+          } else if (flips == 1 && match == c.length - 1) {
+            strengthened++;
+            strengthen(di, flip);
+            if (contradiction) {
+              return false;
+            }
+          }
+        }
+      }
+      if (!propagate()) {
+        return false;
+      }
+    }
+    return !contradiction;
+  }
+
+  // Beschraenkte Variablenelimination; gibt die Zahl der eliminierten
+  // Variablen zurueck
+  private int eliminate() {
+    long[] candidates = new long[maxVar];
+    int n = 0;
+    for (int v = frozen + 1; v <= maxVar; v++) {
+      if (value[v] == 0 && !eliminated[v] && !frozenVars.get(v)) {
+        long count = compact(v) + compact(-v);
+        if (count <= OCCURRENCE_LIMIT) {
+          candidates[n++] = (count << 32) | v;
+        }
+      }
+    }
+    Arrays.sort(candidates, 0, n);
+    int count = 0;
+    List<int[]> resolvents = new ArrayList<int[]>();
+    for (int k = 0; k < n && !contradiction; k++) {
+      int v = (int) candidates[k];
+      if (value[v] != 0) {
+        continue;
+      }
+      int pos = compact(v);
+      int neg = compact(-v);
+      if (pos + neg > OCCURRENCE_LIMIT) {
+        continue;
+      }
+      int[] ps = occ[index(v)];
+      int[] ns = occ[index(-v)];
+      resolvents.clear();
+      boolean bounded = true;
+      for (int i = 0; i < pos && bounded; i++) {
+        for (int j = 0; j < neg && bounded; j++) {
+          int[] r = resolve(clauses.get(ps[i]), clauses.get(ns[j]), v);
+          if (r != null) {
+            resolvents.add(r);
+            bounded = resolvents.size() <= pos + neg && r.length <= RESOLVENT_LIMIT;
+          }
+        }
+      }
+      if (!bounded) {
+        continue;
+      }
+      for (int i = 0; i < pos; i++) {
+        push(clauses.get(ps[i]), v);
+        clauses.set(ps[i], null);
+      }
+      for (int j = 0; j < neg; j++) {
+        push(clauses.get(ns[j]), -v);
+        clauses.set(ns[j], null);
+      }
+      occSize[index(v)] = 0;
+      occSize[index(-v)] = 0;
+      eliminated[v] = true;
+      eliminatedVars++;
+      count++;
+      for (int[] r : resolvents) {
+        if (r.length == 0) {
+          contradiction = true;
+          break;
+        }
+        addClause(r);
+      }
+      propagate();
+    }
+    return count;
+  }
+
+  // Resolvente von c (enthaelt v) und d (enthaelt -v); null bei einer
+  // Tautologie
+  private int[] resolve(int[] c, int[] d, int v) {
+    stamp++;
+    int[] r = new int[c.length + d.length - 2];
+    int k = 0;
+    for (int y : c) {
+      if (y != v) {
+        marks[index(y)] = stamp;
+        r[k++] = y;
+      }
+    }
+    for (int y : d) {
+      if (y == -v || marks[index(y)] == stamp) {
+        continue;
+      }
+      if (marks[index(-y)] == stamp) {
+        return null;
+      }
+      r[k++] = y;
+    }
+    r = k == r.length ? r : Arrays.copyOf(r, k);
+    Arrays.sort(r);
+    return r;
+  }
+}
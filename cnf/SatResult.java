@@ -0,0 +1,23 @@
+package cnf;
+
+/**
+ * Ergebnis einer Erfuellbarkeitspruefung mit Budget.
+ */
+public enum SatResult {
+
+  /**
+   * Es gibt eine erfuellende Belegung.
+   */
+  SAT,
+
+  /**
+   * Es gibt keine erfuellende Belegung.
+   */
+  UNSAT,
+
+  /**
+   * Die Pruefung wurde abgebrochen, weil das Budget erschoepft war oder
+   * sie mit {@code Budget.cancel()} beendet wurde.
+   */
+  UNKNOWN
+}
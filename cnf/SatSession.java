@@ -0,0 +1,504 @@
+package cnf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.IVecInt;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Inkrementelle Sitzung mit einem SAT-Solver.
+ * <p>
+ * Eine Sitzung haelt einen einzigen SAT4J-Solver ueber beliebig viele
+ * Anfragen hinweg am Leben. Formeln werden mit {@code add} dauerhaft
+ * hinzugefuegt; jede Anfrage kann zusaetzlich unter Annahmen gestellt
+ * werden, die nur fuer diese eine Anfrage gelten. Bereits geladene
+ * Klauseln und bereits kodierte Teilformeln werden dabei nicht neu
+ * aufgebaut.
+ * <p>
+ * Ist eine Anfrage unerfuellbar, so bestimmt {@code core()} eine
+ * minimale Teilmenge der Annahmen, die bereits zum Widerspruch fuehrt.
+ * Formeln und Klauseln koennen ausserdem in nummerierten Gruppen
+ * hinzugefuegt werden ({@code addGroup}); {@code groupCore()} nennt
+ * dann die Gruppen, die fuer den Widerspruch gebraucht werden.
+ * <p>
+ * Sitzungen werden mit {@code CNF.session()} oder
+ * {@code CnfContext.session()} erzeugt und gehoeren zu dem jeweiligen
+ * Kontext.
+ */
+public final class SatSession {
+
+  private final CnfContext context;
+  private final ISolver solver;
+  // nimmt alle dauerhaften Klauseln auf und merkt sich Widersprueche
+  private final SolverSink sink;
+  private final TseitinVisitor tseitinVisitor;
+  // behaelt die Vereinfachungen bereits gesehener Teilformeln
+  private final Simplifier simplifier;
+
+  private int[] model;
+  // Anzahl der bisherigen Aufrufe des Solvers
+  private int solverCalls;
+
+  // Auswahlvariable jeder Gruppe; eine Gruppe gilt in einer Anfrage
+  // genau dann, wenn ihre Auswahlvariable als wahr angenommen wird
+  private final Map<Integer, Integer> selectors = new LinkedHashMap<Integer, Integer>();
+
+  // Annahmen der letzten Anfrage und deren Literale, falls sie
+  // unerfuellbar war; sonst null
+  private List<Formula> failedAssumptions;
+  private int[] failedLits;
+  // Ergebnis von minimize() fuer die letzte Anfrage, oder null
+  private List<Formula> coreAssumptions;
+  private int[] coreGroups;
+
+  SatSession(CnfContext context, Encoding encoding) {
+    this.context = context;
+    solver = SolverFactory.newDefault();
+    sink = new SolverSink(solver);
+    tseitinVisitor = new TseitinVisitor(context.pool, encoding, sink);
+    simplifier = new Simplifier();
+  }
+
+  /**
+   * Fuegt die Formel {@code f} dauerhaft zur Sitzung hinzu.
+   * Alle folgenden Anfragen beziehen sich auf die Konjunktion aller
+   * bisher hinzugefuegten Formeln und Klauseln.
+   */
+  public void add(Formula f) {
+    int x = tseitinVisitor.encode(simplifier.simplify(f));
+    sink.clause(new int[]{x}, 0, 1);
+  }
+
+  /**
+   * Fuegt eine Klausel dauerhaft zur Sitzung hinzu. Die Klausel wird
+   * unveraendert an den Solver uebergeben, ohne Tseitin-Kodierung.
+   *
+   * @param lits Literale; {@code n} steht fuer die Variable mit der
+   *             Nummer {@code n}, {@code -n} fuer deren Negation
+   */
+  public void addClause(int... lits) {
+    for (int y : lits) {
+      if (y == 0) {
+        throw new IllegalArgumentException("Literal darf nicht 0 sein!");
+      }
+      context.pool.reserve(Math.abs(y));
+    }
+    sink.clause(lits, 0, lits.length);
+  }
+
+  /**
+   * Fuegt alle Klauseln eines Klauselblocks dauerhaft zur Sitzung hinzu.
+   * Die Klauseln werden unveraendert an den Solver uebergeben.
+   */
+  public void addClauses(ClauseBlock clauses) {
+    context.pool.reserve(clauses.maxVar());
+    clauses.writeTo(sink);
+  }
+
+  /**
+   * Fuegt die Formel {@code f} zur Gruppe {@code group} hinzu. Alle
+   * Gruppen gelten in jeder Anfrage wie dauerhaft hinzugefuegte Formeln;
+   * {@code groupCore()} kann aber nach einer unerfuellbaren Anfrage die
+   * beteiligten Gruppen nennen.
+   *
+   * @param group frei waehlbare Nummer der Gruppe
+   */
+  public void addGroup(int group, Formula f) {
+    int x = tseitinVisitor.encode(simplifier.simplify(f));
+    sink.clause(new int[]{-selector(group), x}, 0, 2);
+  }
+
+  /**
+   * Fuegt alle Klauseln eines Klauselblocks zur Gruppe {@code group}
+   * hinzu; siehe {@code addGroup(int, Formula)}.
+   */
+  public void addGroup(int group, ClauseBlock clauses) {
+    context.pool.reserve(clauses.maxVar());
+    int s = selector(group);
+    int[] clause = new int[16];
+    for (int i = 0; i < clauses.size; i++) {
+      int from = clauses.starts[i];
+      int n = clauses.starts[i + 1] - from;
+      if (n + 1 > clause.length) {
+        clause = new int[2 * (n + 1)];
+      }
+      clause[0] = -s;
+      System.arraycopy(clauses.lits, from, clause, 1, n);
+      sink.clause(clause, 0, n + 1);
+    }
+  }
+
+  private int selector(int group) {
+    Integer s = selectors.get(group);
+    if (s == null) {
+      s = context.pool.freshName();
+      selectors.put(group, s);
+    }
+    return s;
+  }
+
+  /**
+   * Prueft die Konjunktion aller hinzugefuegten Formeln unter den
+   * uebergebenen Annahmen auf Erfuellbarkeit.
+   *
+   * @param assumptions Formeln, die nur fuer diese Anfrage als wahr
+   *                    angenommen werden
+   * @throws TimeoutException
+   * @return {@code true} genau dann, wenn es eine erfuellende Belegung gibt
+   */
+  public boolean solve(Formula... assumptions) throws TimeoutException {
+    return solve(Arrays.asList(assumptions));
+  }
+
+  /**
+   * Wie {@code solve(Formula...)}, mit den Annahmen als Liste.
+   */
+  public boolean solve(List<Formula> assumptions) throws TimeoutException {
+    return run(assumptions, null) == SatResult.SAT;
+  }
+
+  /**
+   * Prueft wie {@code solve}, aber hoechstens im Rahmen des Budgets
+   * {@code budget}. Ist das Budget erschoepft oder wurde es abgebrochen,
+   * so ist das Ergebnis {@code SatResult.UNKNOWN}; die Sitzung kann
+   * danach normal weiter benutzt werden.
+   */
+  public SatResult check(Budget budget, Formula... assumptions) {
+    return check(budget, Arrays.asList(assumptions));
+  }
+
+  /**
+   * Wie {@code check(Budget, Formula...)}, mit den Annahmen als Liste.
+   */
+  public SatResult check(Budget budget, List<Formula> assumptions) {
+    try {
+      return run(assumptions, budget);
+    } catch (TimeoutException ex) {
+      return SatResult.UNKNOWN;
+    }
+  }
+
+  private SatResult run(List<Formula> assumptions, Budget budget)
+          throws TimeoutException {
+    model = null;
+    failedAssumptions = null;
+    failedLits = null;
+    coreAssumptions = null;
+    coreGroups = null;
+    int[] lits = new int[assumptions.size()];
+    for (int i = 0; i < lits.length; i++) {
+      lits[i] = tseitinVisitor.encode(simplifier.simplify(assumptions.get(i)));
+    }
+    sink.declare(context.pool.maxVar());
+    if (sink.isContradiction()) {
+      failedAssumptions = new ArrayList<Formula>(assumptions);
+      failedLits = lits;
+      return SatResult.UNSAT;
+    }
+    if (budget != null && budget.isCancelled()) {
+      return SatResult.UNKNOWN;
+    }
+    IVecInt assumps = new VecInt(lits.length + selectors.size());
+    for (int y : lits) {
+      assumps.push(y);
+    }
+    for (int s : selectors.values()) {
+      assumps.push(s);
+    }
+    solver.setSearchListener(Budget.listener(solver, budget));
+    solverCalls++;
+    if (solver.isSatisfiable(assumps)) {
+      model = solver.model();
+      return SatResult.SAT;
+    }
+    failedAssumptions = new ArrayList<Formula>(assumptions);
+    failedLits = lits;
+    return SatResult.UNSAT;
+  }
+
+  /**
+   * Gibt nach einer unerfuellbaren Anfrage eine minimale Teilmenge ihrer
+   * Annahmen zurueck, die zusammen mit den dauerhaften Formeln und den
+   * Gruppen aus {@code groupCore()} bereits unerfuellbar ist. Laesst man
+   * eine der zurueckgegebenen Annahmen weg, so wird die Anfrage
+   * erfuellbar. Die Annahmen werden als dieselben Objekte und in der
+   * Reihenfolge zurueckgegeben, in der sie der Anfrage uebergeben wurden.
+   * <p>
+   * SAT4J 2.1.1 nennt selbst keine gescheiterten Annahmen; die Menge wird
+   * daher durch Weglassen bestimmt und kostet einen weiteren Aufruf des
+   * Solvers je Annahme und Gruppe. Das Ergebnis wird bis zur naechsten
+   * Anfrage gespeichert.
+   *
+   * @throws IllegalStateException wenn die letzte Anfrage nicht
+   *         unerfuellbar war
+   * @throws TimeoutException
+   */
+  public List<Formula> core() throws TimeoutException {
+    minimize();
+    return new ArrayList<Formula>(coreAssumptions);
+  }
+
+  /**
+   * Gibt nach einer unerfuellbaren Anfrage die Nummern einer minimalen
+   * Menge von Gruppen zurueck, die zusammen mit den dauerhaften Formeln
+   * und den Annahmen aus {@code core()} bereits unerfuellbar ist, in der
+   * Reihenfolge, in der die Gruppen angelegt wurden.
+   *
+   * @throws IllegalStateException wenn die letzte Anfrage nicht
+   *         unerfuellbar war
+   * @throws TimeoutException
+   */
+  public int[] groupCore() throws TimeoutException {
+    minimize();
+    return coreGroups.clone();
+  }
+
+  /**
+   * Gibt die Anzahl der bisherigen Aufrufe des SAT-Solvers in dieser
+   * Sitzung zurueck, einschliesslich derer, die {@code core()},
+   * {@code groupCore()} und {@code models} brauchen. Anfragen, die ohne
+   * Solver entschieden werden, etwa weil die Klauseln bereits
+   * widerspruechlich sind, und ein bereits bestimmter Kern zaehlen nicht.
+   */
+  public int getSolverCalls() {
+    return solverCalls;
+  }
+
+  // Bestimmt coreAssumptions und coreGroups durch Weglassen: eine Annahme
+  // oder Gruppe, ohne die die Anfrage unerfuellbar bleibt, wird endgueltig
+  // weggelassen.
+  private void minimize() throws TimeoutException {
+    if (failedLits == null) {
+      throw new IllegalStateException("Die letzte Anfrage war nicht unerfuellbar!");
+    }
+    if (coreGroups != null) {
+      return;
+    }
+    int n = failedLits.length;
+    int[] groups = new int[selectors.size()];
+    int[] lits = Arrays.copyOf(failedLits, n + groups.length);
+    int g = 0;
+    for (Map.Entry<Integer, Integer> e : selectors.entrySet()) {
+      groups[g] = e.getKey();
+      lits[n + g] = e.getValue();
+      g++;
+    }
+    boolean[] keep = new boolean[lits.length];
+    if (!sink.isContradiction()) {
+      Arrays.fill(keep, true);
+      solver.setSearchListener(Budget.listener(solver, null));
+      IVecInt assumps = new VecInt(lits.length);
+      for (int i = 0; i < lits.length; i++) {
+        keep[i] = false;
+        assumps.clear();
+        for (int j = 0; j < lits.length; j++) {
+          if (keep[j]) {
+            assumps.push(lits[j]);
+          }
+        }
+        solverCalls++;
+        if (solver.isSatisfiable(assumps)) {
+          keep[i] = true;
+        }
+      }
+    }
+    List<Formula> assumptions = new ArrayList<Formula>();
+    for (int i = 0; i < n; i++) {
+      if (keep[i]) {
+        assumptions.add(failedAssumptions.get(i));
+      }
+    }
+    int k = 0;
+    for (int i = 0; i < groups.length; i++) {
+      if (keep[n + i]) {
+        groups[k++] = groups[i];
+      }
+    }
+    coreAssumptions = assumptions;
+    coreGroups = Arrays.copyOf(groups, k);
+  }
+
+  /**
+   * Prueft wie {@code solve} und gibt die Menge der wahren Variablen
+   * in einer erfuellenden Belegung zurueck, oder {@code null}, wenn
+   * es keine solche gibt.
+   */
+  public Set<VarName> satisfiable(Formula... assumptions) throws TimeoutException {
+    return satisfiable(Arrays.asList(assumptions));
+  }
+
+  /**
+   * Wie {@code satisfiable(Formula...)}, mit den Annahmen als Liste.
+   */
+  public Set<VarName> satisfiable(List<Formula> assumptions) throws TimeoutException {
+    if (!solve(assumptions)) {
+      return null;
+    }
+    return trueVars();
+  }
+
+  /**
+   * Gibt die Menge der wahren Variablen in der zuletzt gefundenen
+   * erfuellenden Belegung zurueck.
+   *
+   * @throws IllegalStateException wenn die letzte Anfrage unerfuellbar war
+   */
+  public Set<VarName> trueVars() {
+    if (model == null) {
+      throw new IllegalStateException("Keine erfuellende Belegung vorhanden!");
+    }
+    return CnfContext.trueVars(model);
+  }
+
+  /**
+   * Gibt die Werte der Variablen in {@code vars} in der zuletzt
+   * gefundenen erfuellenden Belegung zurueck: Bit {@code i} ist genau
+   * dann gesetzt, wenn {@code vars[i]} wahr ist.
+   *
+   * @throws IllegalStateException wenn die letzte Anfrage unerfuellbar war
+   */
+  public BitSet model(VarName[] vars) {
+    return model(vars, new BitSet(vars.length));
+  }
+
+  /**
+   * Wie {@code model(vars)}, schreibt die Werte aber in {@code bits}
+   * und gibt dieses zurueck. So kann bei vielen Anfragen dasselbe
+   * {@code BitSet} wiederverwendet werden.
+   */
+  public BitSet model(VarName[] vars, BitSet bits) {
+    if (model == null) {
+      throw new IllegalStateException("Keine erfuellende Belegung vorhanden!");
+    }
+    return CnfContext.project(solver, vars, bits);
+  }
+
+  /**
+   * Zaehlt die erfuellenden Belegungen der Sitzung auf, beschraenkt auf
+   * die Variablen in {@code projection}: jede Belegung dieser Variablen,
+   * die sich zu einer erfuellenden Belegung fortsetzen laesst, wird genau
+   * einmal geliefert. Bit {@code i} ist genau dann gesetzt, wenn
+   * {@code projection[i]} wahr ist.
+   * <p>
+   * Die Belegungen werden erst beim Durchlaufen des Streams bestimmt. Jede
+   * gefundene Belegung wird durch eine Klausel im selben Solver
+   * ausgeschlossen; diese Klauseln gelten nur fuer diese Aufzaehlung,
+   * spaetere Anfragen an die Sitzung bleiben davon unberuehrt. Waehrend
+   * der Aufzaehlung liefern {@code trueVars()} und {@code model} die
+   * zuletzt gelieferte Belegung vollstaendig.
+   *
+   * @param limit Hoechstzahl der gelieferten Belegungen; {@code 0} fuer
+   *              alle
+   * @throws IllegalStateException beim Durchlaufen, wenn der Solver seine
+   *         Zeitgrenze ueberschreitet
+   */
+  public Stream<BitSet> models(VarName[] projection, long limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("Grenze darf nicht negativ sein!");
+    }
+    Iterator<BitSet> it = new ModelIterator(projection.clone(), limit);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it,
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Wie {@code models(projection, 0)}: alle Belegungen.
+   */
+  public Stream<BitSet> models(VarName[] projection) {
+    return models(projection, 0);
+  }
+
+  // Liefert Belegungen nacheinander; die Ausschlussklauseln haengen an
+  // einer eigenen Auswahlvariable, die nur waehrend der Aufzaehlung als
+  // wahr angenommen wird.
+  private final class ModelIterator implements Iterator<BitSet> {
+
+    private final VarName[] projection;
+    private final long limit;
+    private final int selector;
+    private final int[] blocking;
+    private long count;
+    private BitSet next;
+    private boolean done;
+
+    ModelIterator(VarName[] projection, long limit) {
+      this.projection = projection;
+      this.limit = limit;
+      this.selector = context.pool.freshName();
+      this.blocking = new int[projection.length + 1];
+      this.count = 0;
+      this.next = null;
+      this.done = false;
+    }
+
+    public boolean hasNext() {
+      if (next == null && !done) {
+        advance();
+      }
+      return next != null;
+    }
+
+    public BitSet next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      BitSet result = next;
+      next = null;
+      return result;
+    }
+
+    private void advance() {
+      if (limit != 0 && count >= limit) {
+        done = true;
+        return;
+      }
+      sink.declare(context.pool.maxVar());
+      if (sink.isContradiction()) {
+        done = true;
+        return;
+      }
+      IVecInt assumps = new VecInt(selectors.size() + 1);
+      for (int s : selectors.values()) {
+        assumps.push(s);
+      }
+      assumps.push(selector);
+      solver.setSearchListener(Budget.listener(solver, null));
+      model = null;
+      failedLits = null;
+      solverCalls++;
+      try {
+        if (!solver.isSatisfiable(assumps)) {
+          done = true;
+          return;
+        }
+      } catch (TimeoutException ex) {
+        throw new IllegalStateException("Zeitgrenze des Solvers ueberschritten!", ex);
+      }
+      model = solver.model();
+      next = CnfContext.project(solver, projection, new BitSet(projection.length));
+      count++;
+
+      // diese Belegung der Projektion kuenftig ausschliessen
+      blocking[0] = -selector;
+      for (int i = 0; i < projection.length; i++) {
+        int x = projection[i].number;
+        blocking[i + 1] = next.get(i) ? -x : x;
+      }
+      sink.clause(blocking, 0, blocking.length);
+    }
+  }
+}
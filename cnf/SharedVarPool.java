@@ -0,0 +1,37 @@
+package cnf;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Variablenpool, der ohne Sperren von mehreren Threads zugleich benutzt
+ * werden kann. Er wird fuer die statischen Methoden der Klasse
+ * {@code CNF} verwendet, damit gleichzeitige Aufrufe keine Nummer
+ * doppelt vergeben.
+ */
+final class SharedVarPool extends VarPool {
+
+  private final AtomicInteger nextName = new AtomicInteger(1);
+
+  @Override
+  int freshName() {
+    return nextName.getAndIncrement();
+  }
+
+  @Override
+  void reserve(int maxVar) {
+    int n;
+    do {
+      n = nextName.get();
+    } while (n <= maxVar && !nextName.compareAndSet(n, maxVar + 1));
+  }
+
+  @Override
+  int maxVar() {
+    return nextName.get() - 1;
+  }
+
+  @Override
+  void reset() {
+    nextName.set(1);
+  }
+}
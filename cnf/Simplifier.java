@@ -0,0 +1,172 @@
+package cnf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vereinfacht Formeln vor der Tseitin-Kodierung.
+ * <p>
+ * Die Umformungen erhalten die Aequivalenz der Formel:
+ * <ul>
+ * <li>Konstanten werden ausgewertet: {@code and(TRUE, a) = a},
+ *     {@code and(FALSE, a) = FALSE}, entsprechend fuer {@code or};</li>
+ * <li>doppelte Negationen entfallen: {@code neg(neg(a)) = a};</li>
+ * <li>mehrfache Teilformeln werden nur einmal uebernommen;</li>
+ * <li>Absorption: {@code and(a, or(a, b)) = a},
+ *     {@code or(a, and(a, b)) = a};</li>
+ * <li>komplementaere Teilformeln: {@code and(a, neg(a)) = FALSE},
+ *     {@code or(a, neg(a)) = TRUE}.</li>
+ * </ul>
+ * Konjunktionen und Disjunktionen mit nur einer Teilformel werden durch
+ * diese ersetzt. Teilformeln, die erst durch die Vereinfachung zu einer
+ * gleichartigen Verknuepfung werden, werden aufgeloest. Unveraenderte Teilformeln bleiben dieselben Objekte.
+ * <p>
+ * Die Formel wird ohne Rekursion durchlaufen. Gemeinsame Teilformeln
+ * werden nur einmal vereinfacht; die Ergebnisse bleiben ueber mehrere
+ * Aufrufe von {@code simplify} hinweg gespeichert.
+ */
+final class Simplifier {
+
+  private final Map<Formula, Formula> done = new HashMap<Formula, Formula>();
+  private final List<Formula> stack = new ArrayList<Formula>();
+
+  Formula simplify(Formula root) {
+    stack.add(root);
+    while (!stack.isEmpty()) {
+      Formula f = stack.get(stack.size() - 1);
+      if (done.containsKey(f)) {
+        stack.remove(stack.size() - 1);
+        continue;
+      }
+      boolean ready = true;
+      for (Formula c : children(f)) {
+        if (!done.containsKey(c)) {
+          stack.add(c);
+          ready = false;
+        }
+      }
+      if (ready) {
+        stack.remove(stack.size() - 1);
+        done.put(f, rewrite(f));
+      }
+    }
+    return done.get(root);
+  }
+
+  private static Formula[] children(Formula f) {
+    if (f instanceof FormulaAnd) {
+      return ((FormulaAnd) f).fms;
+    } else if (f instanceof FormulaOr) {
+      return ((FormulaOr) f).fms;
+    } else if (f instanceof FormulaNeg) {
+      return new Formula[]{((FormulaNeg) f).fm};
+    }
+    return new Formula[0];
+  }
+
+  // Vereinfacht f; die Kinder sind bereits vereinfacht
+  private Formula rewrite(Formula f) {
+    if (f instanceof FormulaNeg) {
+      Formula fm = ((FormulaNeg) f).fm;
+      Formula s = done.get(fm);
+      if (s instanceof FormulaNeg) {
+        return ((FormulaNeg) s).fm;
+      } else if (s == CNF.TRUE) {
+        return CNF.FALSE;
+      } else if (s == CNF.FALSE) {
+        return CNF.TRUE;
+      }
+      return s == fm ? f : CNF.neg(s);
+    } else if (f instanceof FormulaAnd) {
+      return junction(((FormulaAnd) f).fms, f, true);
+    } else if (f instanceof FormulaOr) {
+      return junction(((FormulaOr) f).fms, f, false);
+    }
+    return f;
+  }
+
+  // Vereinfacht eine Konjunktion (and == true) bzw. Disjunktion f mit den
+  // Kindern fms
+  private Formula junction(Formula[] fms, Formula f, boolean and) {
+    // neutrales und absorbierendes Element
+    Formula unit = and ? CNF.TRUE : CNF.FALSE;
+    Formula zero = and ? CNF.FALSE : CNF.TRUE;
+
+    // vereinfachte Kinder; Kinder, die erst durch die Vereinfachung
+    // gleichartig geworden sind, werden aufgeloest. Bewusst geschachtelte
+    // Knoten (etwa die Zaehler aus Cardinality) bleiben erhalten.
+    Set<Formula> set = new LinkedHashSet<Formula>();
+    for (Formula c : fms) {
+      Formula s = done.get(c);
+      if (s == zero) {
+        return zero;
+      }
+      if (s == unit) {
+        continue;
+      }
+      Formula[] sub = s != c ? sameKind(s, and) : null;
+      if (sub != null) {
+        for (Formula d : sub) {
+          set.add(d);
+        }
+      } else {
+        set.add(s);
+      }
+    }
+
+    List<Formula> kept = new ArrayList<Formula>(set.size());
+    for (Formula c : set) {
+      if (c instanceof FormulaNeg && set.contains(((FormulaNeg) c).fm)) {
+        return zero;
+      }
+      if (!absorbed(c, set, and)) {
+        kept.add(c);
+      }
+    }
+
+    if (kept.isEmpty()) {
+      return unit;
+    } else if (kept.size() == 1) {
+      return kept.get(0);
+    } else if (kept.size() == fms.length) {
+      boolean same = true;
+      for (int i = 0; i < fms.length && same; i++) {
+        same = kept.get(i) == fms[i];
+      }
+      if (same) {
+        return f;
+      }
+    }
+    // nicht ueber CNF.and/or, damit geschachtelte Kinder erhalten bleiben
+    Formula[] arr = kept.toArray(new Formula[kept.size()]);
+    return CNF.formulas.intern(and ? new FormulaAnd(arr) : new FormulaOr(arr));
+  }
+
+  // c ist eine Disjunktion in einer Konjunktion (bzw. umgekehrt), von
+  // deren Kindern eines bereits direkt in set vorkommt
+  private static boolean absorbed(Formula c, Set<Formula> set, boolean and) {
+    Formula[] sub = sameKind(c, !and);
+    if (sub == null) {
+      return false;
+    }
+    for (Formula d : sub) {
+      if (set.contains(d)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Formula[] sameKind(Formula f, boolean and) {
+    if (and && f instanceof FormulaAnd) {
+      return ((FormulaAnd) f).fms;
+    } else if (!and && f instanceof FormulaOr) {
+      return ((FormulaOr) f).fms;
+    }
+    return null;
+  }
+}
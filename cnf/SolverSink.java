@@ -0,0 +1,75 @@
+package cnf;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Klauselempfaenger, der jede Klausel sofort an einen SAT4J-Solver
+ * uebergibt.
+ * <p>
+ * Variablen werden dem Solver bei Bedarf bekannt gemacht. Ist die
+ * Klauselmenge bereits ohne Suche widerspruechlich, so wird das
+ * vermerkt und alle weiteren Klauseln werden ignoriert.
+ */
+public final class SolverSink implements ClauseSink {
+
+  private final ISolver solver;
+  private final IVecInt clause;
+  private int declaredVars;
+  private boolean contradiction;
+
+  /**
+   * Erzeugt einen Empfaenger fuer den uebergebenen Solver.
+   */
+  public SolverSink(ISolver solver) {
+    this.solver = solver;
+    this.clause = new VecInt();
+    this.declaredVars = solver.nVars();
+    this.contradiction = false;
+  }
+
+  public void clause(int[] lits, int from, int to) {
+    if (contradiction) {
+      return;
+    }
+    clause.clear();
+    for (int i = from; i < to; i++) {
+      int y = lits[i];
+      declare(Math.abs(y));
+      clause.push(y);
+    }
+    try {
+      solver.addClause(clause);
+    } catch (ContradictionException ex) {
+      contradiction = true;
+    }
+  }
+
+  /**
+   * Macht dem Solver alle Variablen bis einschliesslich {@code maxVar}
+   * bekannt.
+   */
+  public void declare(int maxVar) {
+    if (maxVar > declaredVars) {
+      declaredVars = maxVar;
+      solver.newVar(maxVar);
+    }
+  }
+
+  /**
+   * Gibt {@code true} zurueck, wenn die uebergebenen Klauseln
+   * offensichtlich unerfuellbar sind.
+   */
+  public boolean isContradiction() {
+    return contradiction;
+  }
+
+  /**
+   * Gibt den Solver zurueck, an den die Klauseln uebergeben werden.
+   */
+  public ISolver getSolver() {
+    return solver;
+  }
+}
@@ -1,136 +1,257 @@
 package cnf;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 import static cnf.CNF.*;
 
-class TseitinVisitor implements FormulaVisitor<Integer> {
+/**
+ * Tseitin-Kodierung von Formeln.
+ * <p>
+ * Die Formel wird nicht rekursiv, sondern mit einem expliziten Stapel
+ * durchlaufen. Die Schachtelungstiefe der Formel ist daher nur durch
+ * den verfuegbaren Heap begrenzt, nicht durch die Groesse des
+ * Aufrufstapels.
+ */
+class TseitinVisitor {
 
+  // Polaritaeten, in denen eine Teilformel vorkommt, als Bitmaske
+  static final int POSITIVE = 1;
+  static final int NEGATIVE = 2;
+  static final int BOTH = POSITIVE | NEGATIVE;
+
+  // liefert die Nummern der Hilfsvariablen
+  final VarPool pool;
+  final Encoding encoding;
   Map<Formula, Integer> fmVars;
-  Set<Set<Integer>> clauses;
+  // bereits kodierte Polaritaeten jeder Teilformel
+  Map<Formula, Integer> fmPolarities;
+  // gesammelte Klauseln, oder null, wenn direkt in einen fremden
+  // Empfaenger geschrieben wird
+  ClauseBlock clauses;
+  final ClauseSink sink;
 
-  TseitinVisitor() {
-    fmVars = new HashMap<Formula, Integer>();
-    clauses = new HashSet<Set<Integer>>();
+  // Stapel der noch nicht fertig kodierten Teilformeln: Formel,
+  // zu kodierende Polaritaet und Index des naechsten Kindes
+  private Formula[] stackFms;
+  private int[] stackPols;
+  private int[] stackNext;
+  private int stackSize;
+
+  // Stapel der Literale bereits kodierter Kinder
+  private int[] lits;
+  private int litsSize;
+
+  // Puffer fuer die gerade erzeugte Klausel
+  private int[] clause;
+
+  // Die erzeugten Klauseln werden gesammelt, doppelte Klauseln verworfen.
+  TseitinVisitor(VarPool pool, Encoding encoding) {
+    this(pool, encoding, new ClauseBlock(true));
+    clauses = (ClauseBlock) sink;
   }
 
-  Set<Set<Integer>> getClauses() {
-    return clauses;
+  // Jede erzeugte Klausel wird sofort an sink uebergeben und nicht
+  // gesammelt.
+  TseitinVisitor(VarPool pool, Encoding encoding, ClauseSink sink) {
+    this.pool = pool;
+    this.encoding = encoding;
+    this.sink = sink;
+    fmVars = new HashMap<Formula, Integer>();
+    fmPolarities = new HashMap<Formula, Integer>();
+    clause = new int[16];
+    stackFms = new Formula[64];
+    stackPols = new int[64];
+    stackNext = new int[64];
+    lits = new int[64];
   }
 
-  Formula getResultFormula(Integer x) {
-    List<Formula> clfms = new LinkedList<Formula>();
-    clfms.add(var (new VarName(x)));
-    for (Set<Integer> c : clauses) {
-      List<Formula> lits = new LinkedList<Formula>();
-      for (Integer y : c) {
-        if (y > 0) {
-          lits.add(var(new VarName(y)));
-        } else {
-          lits.add(neg(var(new VarName(-y))));
-        }
+  /**
+   * Kodiert {@code fm} so, dass {@code fm} als wahr angenommen werden
+   * kann, und gibt das Literal zurueck, das {@code fm} repraesentiert.
+   * Bereits kodierte Teilformeln werden nicht erneut kodiert.
+   */
+  Integer encode(Formula fm) {
+    int pol = encoding == Encoding.TSEITIN ? BOTH : POSITIVE;
+    stackSize = 0;
+    litsSize = 0;
+    push(fm, pol);
+    while (stackSize > 0) {
+      int top = stackSize - 1;
+      Formula f = stackFms[top];
+      if (stackNext[top] == 0 && !expand(f, top)) {
+        continue;
+      }
+      Formula[] children = children(f);
+      int i = stackNext[top] - 1;
+      if (i < children.length) {
+        stackNext[top]++;
+        push(children[i], childPolarity(f, stackPols[top]));
+      } else {
+        stackSize--;
+        stackFms[top] = null;
+        litsSize -= children.length;
+        pushLit(combine(f, stackPols[top], litsSize, children.length));
       }
-      clfms.add(or(lits));
     }
-    return and(clfms);
+    return lits[0];
   }
 
-  String getResultDIMACS(Integer x) {
-    StringBuffer s = new StringBuffer();
-    s.append("fm " + (clauses.size() + 1) + " " + nextName + "\n");
-    s.append(x + " 0\n");
-    for (Set<Integer> c : clauses) {
-      for (Integer y : c) {
-        s.append(y);
-        s.append(" ");
+  // Erster Besuch der Teilformel oben auf dem Stapel. Gibt false zurueck,
+  // wenn sie dabei bereits vollstaendig erledigt wurde.
+  private boolean expand(Formula f, int top) {
+    int pol = stackPols[top];
+    Integer x = fmVars.get(f);
+    if (x != null) {
+      Integer done = fmPolarities.get(f);
+      if (done == null || (done & pol) == pol) {
+        stackSize--;
+        stackFms[top] = null;
+        pushLit(x);
+        return false;
       }
-      s.append("0\n");
     }
-    return s.toString();
+    if (f instanceof FormulaVar) {
+      int n = ((FormulaVar) f).name.number;
+      fmVars.put(f, n);
+      stackSize--;
+      stackFms[top] = null;
+      pushLit(n);
+      return false;
+    }
+    if (f instanceof FormulaAnd || f instanceof FormulaOr) {
+      // nur die noch fehlenden Polaritaeten muessen kodiert werden
+      Integer done = fmPolarities.get(f);
+      int d = done == null ? 0 : done;
+      fmPolarities.put(f, d | pol);
+      stackPols[top] = pol & ~d;
+      if (fmVars.get(f) == null) {
+        fmVars.put(f, pool.freshName());
+      }
+    }
+    stackNext[top] = 1;
+    return true;
   }
 
-  public Integer visitVar(FormulaVar fm) {
-    fmVars.put(fm, fm.name.number);
-    return fm.name.number;
+  private static Formula[] children(Formula f) {
+    if (f instanceof FormulaAnd) {
+      return ((FormulaAnd) f).fms;
+    } else if (f instanceof FormulaOr) {
+      return ((FormulaOr) f).fms;
+    } else {
+      return new Formula[]{((FormulaNeg) f).fm};
+    }
   }
 
-  public Integer visitNeg(FormulaNeg fm) {
-    Integer xbody = fmVars.get(fm.fm);
-    if (xbody == null) {
-      xbody = fm.fm.accept(this);
+  private int childPolarity(Formula f, int pol) {
+    if (!(f instanceof FormulaNeg)) {
+      return pol;
     }
-    Integer x = freshName();
-    fmVars.put(fm, x);
-    Set<Integer> clause = new TreeSet<Integer>();
-    clause.add(x);
-    clause.add(xbody);
-    clauses.add(clause);
-    clause = new TreeSet<Integer>();
-    clause.add(-x);
-    clause.add(-xbody);
-    clauses.add(clause);
-    return x;
+    if (encoding == Encoding.PLAISTED_GREENBAUM) {
+      return ((pol & POSITIVE) != 0 ? NEGATIVE : 0)
+              | ((pol & NEGATIVE) != 0 ? POSITIVE : 0);
+    }
+    return BOTH;
   }
 
-  public Integer visitOr(FormulaOr fm) {
-    List<Integer> xs = new LinkedList<Integer>();
-    for (Formula f : fm.fms) {
-      Integer x = fmVars.get(f);
-      if (x == null) {
-        x = f.accept(this);
+  // Erzeugt die Klauseln fuer f aus den Literalen der Kinder, die ab
+  // Position from auf dem Literalstapel liegen, und gibt das Literal
+  // fuer f zurueck.
+  private int combine(Formula f, int todo, int from, int n) {
+    if (f instanceof FormulaNeg) {
+      int xbody = lits[from];
+      if (encoding == Encoding.PLAISTED_GREENBAUM) {
+        // keine Hilfsvariable: die Teilformel kommt mit umgekehrter
+        // Polaritaet vor
+        return -xbody;
+      }
+      int x = pool.freshName();
+      fmVars.put(f, x);
+      addClause(x, xbody);
+      addClause(-x, -xbody);
+      return x;
+    }
+    int x = fmVars.get(f);
+    boolean and = f instanceof FormulaAnd;
+    // die lange Klausel: fuer and bei negativer, fuer or bei positiver Polaritaet
+    if ((todo & (and ? NEGATIVE : POSITIVE)) != 0) {
+      if (clause.length < n + 1) {
+        clause = new int[2 * (n + 1)];
       }
-      xs.add(x);
+      clause[0] = and ? x : -x;
+      for (int i = 0; i < n; i++) {
+        clause[i + 1] = and ? -lits[from + i] : lits[from + i];
+      }
+      sink.clause(clause, 0, n + 1);
     }
-    Integer x = freshName();
-    fmVars.put(fm, x);
-
-    Set<Integer> clause = new TreeSet<Integer>();
-    clause.add(-x);
-    clause.addAll(xs);
-    clauses.add(clause);
-
-    for (Integer y : xs) {
-      clause = new TreeSet<Integer>();
-      clause.add(x);
-      clause.add(-y);
-      clauses.add(clause);
+    // die binaeren Klauseln fuer die andere Polaritaet
+    if ((todo & (and ? POSITIVE : NEGATIVE)) != 0) {
+      for (int i = from; i < from + n; i++) {
+        if (and) {
+          addClause(-x, lits[i]);
+        } else {
+          addClause(x, -lits[i]);
+        }
+      }
     }
-
     return x;
   }
 
-  public Integer visitAnd(FormulaAnd fm) {
-    List<Integer> xs = new LinkedList<Integer>();
-    for (Formula f : fm.fms) {
-      Integer x = fmVars.get(f);
-      if (x == null) {
-        x = f.accept(this);
-      }
-      xs.add(x);
+  private void addClause(int y1, int y2) {
+    clause[0] = y1;
+    clause[1] = y2;
+    sink.clause(clause, 0, 2);
+  }
+
+  private void push(Formula f, int pol) {
+    if (stackSize == stackFms.length) {
+      int n = 2 * stackSize;
+      stackFms = Arrays.copyOf(stackFms, n);
+      stackPols = Arrays.copyOf(stackPols, n);
+      stackNext = Arrays.copyOf(stackNext, n);
+    }
+    stackFms[stackSize] = f;
+    stackPols[stackSize] = pol;
+    stackNext[stackSize] = 0;
+    stackSize++;
+  }
+
+  private void pushLit(int y) {
+    if (litsSize == lits.length) {
+      lits = Arrays.copyOf(lits, 2 * litsSize);
     }
-    Integer x = freshName();
-    fmVars.put(fm, x);
+    lits[litsSize++] = y;
+  }
 
-    Set<Integer> clause = new TreeSet<Integer>();
-    clause.add(x);
-    for (Integer y : xs) {
-      clause.add(-y);
+  Formula getResultFormula(Integer x) {
+    List<Formula> clfms = new LinkedList<Formula>();
+    clfms.add(literal(x));
+    for (int i = 0; i < clauses.size; i++) {
+      List<Formula> litFms = new LinkedList<Formula>();
+      for (int j = clauses.starts[i]; j < clauses.starts[i + 1]; j++) {
+        litFms.add(literal(clauses.lits[j]));
+      }
+      clfms.add(or(litFms));
     }
-    clauses.add(clause);
+    return and(clfms);
+  }
 
-    for (Integer y : xs) {
-      clause = new TreeSet<Integer>();
-      clause.add(-x);
-      clause.add(y);
-      clauses.add(clause);
+  private static Formula literal(Integer y) {
+    if (y > 0) {
+      return var(new VarName(y));
+    } else {
+      return neg(var(new VarName(-y)));
     }
+  }
 
-    return x;
+  String getResultDIMACS(Integer x) {
+    StringBuffer s = new StringBuffer();
+    int maxVar = Math.max(clauses.maxVar(), Math.abs(x));
+    s.append("p cnf " + maxVar + " " + (clauses.size() + 1) + "\n");
+    s.append(x + " 0\n");
+    s.append(clauses);
+    return s.toString();
   }
 }
-
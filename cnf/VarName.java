@@ -6,7 +6,9 @@ package cnf;
  * Diese Klasse stellt neben {@code toString}, {@code equals} und {@hashCode} 
  * kein oeffentliches Interface bereit.
  * Variablen koennen mit de Methode {@code freshVarName()} der
- * Klasse {@code CNF} konstruiert werden.
+ * Klasse {@code CNF} oder eines {@code CnfContext} konstruiert werden.
+ * Die Nummer einer Variable ist nur innerhalb des Kontexts eindeutig,
+ * in dem sie erzeugt wurde.
  */
 
 public final class VarName {
@@ -17,10 +19,6 @@ public final class VarName {
 
   final int number;
 
-  VarName() {
-    this.number = CNF.freshName();
-  }
-
   VarName(int n) {
     this.number = n;
   }
@@ -0,0 +1,35 @@
+package cnf;
+
+/**
+ * Vergabe von Variablennummern.
+ * <p>
+ * Ein Pool gehoert zu genau einem {@code CnfContext} und ist nicht
+ * synchronisiert; er darf daher nur von einem Thread zugleich benutzt
+ * werden. Variablen und Tseitin-Hilfsvariablen eines Kontexts werden
+ * fortlaufend ab 1 nummeriert.
+ */
+class VarPool {
+
+  private int nextName = 1;
+
+  int freshName() {
+    return nextName++;
+  }
+
+  // Stellt sicher, dass neue Variablen nicht mit Variablen bis
+  // einschliesslich maxVar zusammenfallen.
+  void reserve(int maxVar) {
+    if (nextName <= maxVar) {
+      nextName = maxVar + 1;
+    }
+  }
+
+  // groesste bisher vergebene Nummer
+  int maxVar() {
+    return nextName - 1;
+  }
+
+  void reset() {
+    nextName = 1;
+  }
+}